@@ -0,0 +1,40 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AuthEntryPointBenchmark {
+
+    private AuthEntryPointJwt entryPoint;
+
+    private MockHttpServletRequest request;
+
+    private AuthenticationException exception;
+
+    @Setup
+    public void setUp() {
+        entryPoint = new AuthEntryPointJwt();
+        request = new MockHttpServletRequest("GET", "/api/session");
+        request.setServletPath("/api/session");
+        exception = new InsufficientAuthenticationException("Full authentication is required to access this resource");
+    }
+
+    @Benchmark
+    public byte[] commence() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        entryPoint.commence(request, response, exception);
+        return response.getContentAsByteArray();
+    }
+}
@@ -0,0 +1,69 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.JwtValidationResult;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former AuthTokenFilter path (validateJwtToken then
+ * getUserNameFromJwtToken, each building its own parser) with the single
+ * parseAndValidate call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtParsingBenchmark {
+
+    private static final String SECRET = "openclassrooms";
+
+    @Param({"valid", "expired", "tampered"})
+    public String tokenKind;
+
+    private JwtUtils jwtUtils;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = jwtUtils(SECRET, "expired".equals(tokenKind) ? -60000 : 3600000);
+
+        // Un jeton "tampered" est signé avec une autre clé : la signature ne correspond plus
+        JwtUtils issuer = "tampered".equals(tokenKind) ? jwtUtils("anotherSecret", 3600000) : jwtUtils;
+
+        UserDetailsImpl principal = UserDetailsImpl.builder().username("yoga@studio.com").build();
+        token = issuer.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null));
+    }
+
+    @Benchmark
+    public String legacyValidateThenParse() {
+        try {
+            Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        return Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public JwtValidationResult parseAndValidate() {
+        return jwtUtils.parseAndValidate(token);
+    }
+
+    static JwtUtils jwtUtils(String secret, int expirationMs) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", expirationMs);
+        return utils;
+    }
+}
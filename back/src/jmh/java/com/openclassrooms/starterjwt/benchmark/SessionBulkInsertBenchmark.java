@@ -0,0 +1,79 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.services.SessionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts a timetable through SessionService.createAll against the H2 test
+ * database, with JDBC batching off (one statement per row, as IDENTITY
+ * ids forced) and on (pooled ids, batches of 50).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SessionBulkInsertBenchmark {
+
+    @Param({"0", "50"})
+    public int batchSize;
+
+    @Param({"1000"})
+    public int sessionCount;
+
+    private ConfigurableApplicationContext context;
+
+    private SessionService sessionService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize)
+                .run();
+        sessionService = context.getBean(SessionService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteSessions() {
+        jdbcTemplate.update("DELETE FROM SESSIONS");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Session> createAll() {
+        List<Session> sessions = new ArrayList<>(sessionCount);
+        Date date = new Date();
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(new Session()
+                    .setName("Session " + i)
+                    .setDate(date)
+                    .setDescription("Imported session")
+                    .setCapacity(20)
+                    .setUsers(new ArrayList<>()));
+        }
+        return sessionService.createAll(sessions);
+    }
+}
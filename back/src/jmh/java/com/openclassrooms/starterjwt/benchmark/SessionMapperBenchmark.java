@@ -0,0 +1,119 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.mapper.SessionMapperImpl;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the mapping itself: the services behind SessionMapper are
+ * in-memory stubs, so no database round trip is included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SessionMapperBenchmark {
+
+    private static final int PARTICIPANTS = 20;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int sessionCount;
+
+    private SessionMapper sessionMapper;
+
+    private List<Session> sessions;
+
+    private List<SessionDto> sessionDtos;
+
+    @Setup
+    public void setUp() {
+        Teacher teacher = Teacher.builder().id(1L).firstName("Margot").lastName("DELAHAYE").build();
+
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= PARTICIPANTS; id++) {
+            users.add(User.builder()
+                    .id(id)
+                    .email("user" + id + "@test.com")
+                    .firstName("First")
+                    .lastName("Last")
+                    .password("password")
+                    .build());
+        }
+
+        sessionMapper = new SessionMapperImpl();
+        ReflectionTestUtils.setField(sessionMapper, "teacherService", new InMemoryTeacherService(teacher));
+        ReflectionTestUtils.setField(sessionMapper, "userService", new InMemoryUserService(users));
+
+        sessions = new ArrayList<>(sessionCount);
+        for (long id = 1; id <= sessionCount; id++) {
+            sessions.add(Session.builder()
+                    .id(id)
+                    .name("Session " + id)
+                    .date(new Date())
+                    .description("Benchmark session")
+                    .teacher(teacher)
+                    .users(users)
+                    .build());
+        }
+        sessionDtos = sessionMapper.toDto(sessions);
+    }
+
+    @Benchmark
+    public List<SessionDto> toDto() {
+        return sessionMapper.toDto(sessions);
+    }
+
+    @Benchmark
+    public List<Session> toEntity() {
+        return sessionMapper.toEntity(sessionDtos);
+    }
+
+    static class InMemoryTeacherService extends TeacherService {
+        private final Teacher teacher;
+
+        InMemoryTeacherService(Teacher teacher) {
+            super(null);
+            this.teacher = teacher;
+        }
+
+        @Override
+        public Teacher findById(Long id) {
+            return teacher;
+        }
+    }
+
+    static class InMemoryUserService extends UserService {
+        private final List<User> users;
+
+        InMemoryUserService(List<User> users) {
+            super(null, null);
+            this.users = users;
+        }
+
+        @Override
+        public User findById(Long id) {
+            return users.get((int) (id - 1));
+        }
+
+        @Override
+        public List<User> findAllById(Collection<Long> ids) {
+            return ids.stream().map(this::findById).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Replays the flows of the Postman collection against the application
+ * started on H2, with a configurable number of virtual users, think time
+ * and request mix, then reports throughput and latency percentiles per
+ * request and compares them with a baseline run.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.users=50 -Dloadtest.baseline=baseline.json
+ * </pre>
+ *
+ * Settings are system properties, see {@link Settings}.
+ */
+public final class LoadTest {
+    static final String LOGIN = "auth/login";
+
+    static final String PARTICIPATE = "session/participe";
+
+    static final String LEAVE = "session/no longer participe";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = new Settings();
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        PostmanCollection collection = PostmanCollection.read(Paths.get(settings.collection), objectMapper);
+
+        List<PostmanCollection.Request> mix = new ArrayList<>();
+        long[] cumulativeWeights = new long[settings.mix.size()];
+        long total = 0;
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : settings.mix.entrySet()) {
+            mix.add(collection.get(entry.getKey()));
+            total += entry.getValue();
+            cumulativeWeights[mix.size() - 1] = total;
+            stats.put(entry.getKey(), new EndpointStats());
+        }
+        // a virtual user turns a join into a leave, and the other way round, when its enrolments require it
+        if (stats.containsKey(PARTICIPATE) || stats.containsKey(LEAVE)) {
+            stats.putIfAbsent(PARTICIPATE, new EndpointStats());
+            stats.putIfAbsent(LEAVE, new EndpointStats());
+        }
+
+        // command-line arguments, so that they win over the property files;
+        // statement counting stays off, as in production
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--management.server.port=-1", "--oc.app.queryCountEnabled=false");
+        int exitCode;
+        try {
+            JsonNode credentials = objectMapper.readTree(collection.get(LOGIN).getBody());
+            Fixtures fixtures = Fixtures.seed(context, credentials.path("email").asText(),
+                    credentials.path("password").asText(), settings);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds);
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            System.out.printf("Load test: %d users, %ds warm-up, %ds measured, think time %dms%n",
+                    settings.users, settings.warmupSeconds, settings.durationSeconds, settings.thinkTimeMs);
+            ExecutorService pool = Executors.newFixedThreadPool(settings.users);
+            List<Future<?>> users = new ArrayList<>();
+            for (int i = 0; i < settings.users; i++) {
+                users.add(pool.submit(new VirtualUser(httpClient, objectMapper, baseUrl, collection, mix,
+                        cumulativeWeights, fixtures, stats, settings.thinkTimeMs, measureFrom, end, i)));
+            }
+            int failedUsers = 0;
+            for (Future<?> user : users) {
+                try {
+                    user.get(settings.warmupSeconds + settings.durationSeconds + 120L, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    failedUsers++;
+                    System.err.println(e.getCause().getMessage());
+                }
+            }
+            pool.shutdownNow();
+
+            Map<String, Object> result = report(settings, stats);
+            Path resultFile = Paths.get(settings.resultFile);
+            Files.createDirectories(resultFile.toAbsolutePath().getParent());
+            objectMapper.writeValue(resultFile.toFile(), result);
+            System.out.println("Results written to " + resultFile.toAbsolutePath());
+
+            boolean regressed = settings.baseline != null
+                    && compare(objectMapper.readTree(Paths.get(settings.baseline).toFile()),
+                    objectMapper.valueToTree(result), settings.maxRegression, settings.maxErrorRateIncrease);
+            exitCode = failedUsers > 0 || regressed ? 1 : 0;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    private static Map<String, Object> report(Settings settings, Map<String, EndpointStats> stats) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.printf("%n%-28s %8s %9s %6s %6s %9s %9s %9s %9s%n",
+                "request", "count", "req/s", "4xx", "5xx", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            Map<String, Object> summary = entry.getValue().summary(settings.durationSeconds);
+            endpoints.put(entry.getKey(), summary);
+            System.out.printf("%-28s %8s %9s %6s %6s %9s %9s %9s %9s%n", entry.getKey(),
+                    summary.get("count"), summary.get("throughput"), summary.get("clientErrors"),
+                    summary.get("serverErrors"), summary.get("p50"), summary.get("p95"),
+                    summary.get("p99"), summary.get("max"));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("settings", settings.describe());
+        result.put("endpoints", endpoints);
+        return result;
+    }
+
+    /**
+     * Prints, per request, the change of throughput, p95 and error rate
+     * against the baseline. A request regresses when its p95 grows, or its
+     * throughput drops, by more than {@code maxRegression}, or when its share
+     * of 4xx and 5xx responses grows by more than {@code maxErrorRateIncrease}:
+     * a request that now fails fast must not pass as faster.
+     */
+    private static boolean compare(JsonNode baseline, JsonNode current, double maxRegression, double maxErrorRateIncrease) {
+        boolean regressed = false;
+        System.out.printf("%n%-28s %12s %12s %12s%n", "vs baseline", "req/s", "p95", "errors");
+        Iterator<Map.Entry<String, JsonNode>> endpoints = current.path("endpoints").fields();
+        while (endpoints.hasNext()) {
+            Map.Entry<String, JsonNode> endpoint = endpoints.next();
+            JsonNode before = baseline.path("endpoints").path(endpoint.getKey());
+            if (before.isMissingNode()) {
+                System.out.printf("%-28s %12s %12s %12s%n", endpoint.getKey(), "new", "new", "new");
+                continue;
+            }
+
+            double throughput = change(before.path("throughput").asDouble(), endpoint.getValue().path("throughput").asDouble());
+            double p95 = change(before.path("p95").asDouble(), endpoint.getValue().path("p95").asDouble());
+            double errors = errorRate(endpoint.getValue()) - errorRate(before);
+            boolean worse = throughput < -maxRegression || p95 > maxRegression || errors > maxErrorRateIncrease;
+            regressed |= worse;
+            System.out.printf("%-28s %+11.1f%% %+11.1f%% %+9.1f pt%s%n", endpoint.getKey(), throughput * 100, p95 * 100,
+                    errors * 100, worse ? "  REGRESSION" : "");
+        }
+        return regressed;
+    }
+
+    private static double errorRate(JsonNode summary) {
+        long count = summary.path("count").asLong();
+        return count == 0 ? 0 : (summary.path("clientErrors").asLong() + summary.path("serverErrors").asLong()) / (double) count;
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before;
+    }
+
+    /**
+     * Run settings, read from system properties prefixed with "loadtest.".
+     */
+    static final class Settings {
+        final String collection = System.getProperty("loadtest.collection", "../ressources/postman/yoga.postman_collection.json");
+        final int users = Integer.getInteger("loadtest.users", 20);
+        final int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+        final int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 60);
+        final long thinkTimeMs = Long.getLong("loadtest.thinkTimeMs", 100);
+        final int seedUsers = Integer.getInteger("loadtest.seedUsers", 200);
+        final int seedTeachers = Integer.getInteger("loadtest.seedTeachers", 5);
+        final int seedSessions = Integer.getInteger("loadtest.seedSessions", 50);
+        final String resultFile = System.getProperty("loadtest.resultFile", "target/loadtest/loadtest-result.json");
+        final String baseline = emptyToNull(System.getProperty("loadtest.baseline"));
+        final double maxRegression = Double.parseDouble(System.getProperty("loadtest.maxRegression", "0.10"));
+        // absolute share of the requests, 0.01 = one more failed request in a hundred
+        final double maxErrorRateIncrease = Double.parseDouble(System.getProperty("loadtest.maxErrorRateIncrease", "0.01"));
+        // request key = weight; the default leaves out the destructive requests
+        final Map<String, Long> mix = parseMix(Objects.requireNonNullElse(emptyToNull(System.getProperty("loadtest.mix")),
+                "auth/login=1,teacher/find all=2,session/find all=10,session/find by id=6,"
+                        + "session/create=1,session/participe=3,session/no longer participe=2,user/find by id=2"));
+
+        Map<String, Object> describe() {
+            Map<String, Object> describe = new LinkedHashMap<>();
+            describe.put("users", users);
+            describe.put("warmupSeconds", warmupSeconds);
+            describe.put("durationSeconds", durationSeconds);
+            describe.put("thinkTimeMs", thinkTimeMs);
+            describe.put("mix", mix);
+            return describe;
+        }
+
+        private static Map<String, Long> parseMix(String mix) {
+            Map<String, Long> weights = new LinkedHashMap<>();
+            for (String entry : mix.split(",")) {
+                String[] pair = entry.split("=", 2);
+                long weight = pair.length == 2 ? Long.parseLong(pair[1].trim()) : 1;
+                if (weight > 0) {
+                    weights.put(pair[0].trim(), weight);
+                }
+            }
+            if (weights.isEmpty()) {
+                throw new IllegalArgumentException("Empty request mix: " + mix);
+            }
+            return weights;
+        }
+
+        private static String emptyToNull(String value) {
+            return value == null || value.trim().isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * Data the requests refer to: the collection's login user (an admin),
+     * plain users, teachers and sessions without a capacity limit.
+     */
+    static final class Fixtures {
+        private final List<Long> userIds;
+        private final List<Long> teacherIds;
+        private final List<Long> sessionIds;
+
+        private Fixtures(List<Long> userIds, List<Long> teacherIds, List<Long> sessionIds) {
+            this.userIds = userIds;
+            this.teacherIds = teacherIds;
+            this.sessionIds = sessionIds;
+        }
+
+        static Fixtures seed(ConfigurableApplicationContext context, String email, String password, Settings settings) {
+            PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            TeacherRepository teacherRepository = context.getBean(TeacherRepository.class);
+            SessionRepository sessionRepository = context.getBean(SessionRepository.class);
+
+            List<User> users = new ArrayList<>();
+            users.add(new User().setEmail(email).setFirstName("Admin").setLastName("Admin")
+                    .setPassword(passwordEncoder.encode(password)).setAdmin(true));
+            // the other users never log in, their password is not checked
+            // one account per virtual user at least, for its joins and leaves
+            for (int i = 0; i < Math.max(settings.seedUsers, settings.users); i++) {
+                users.add(new User().setEmail("user" + i + "@yoga.test").setFirstName("User").setLastName("N" + i)
+                        .setPassword(users.get(0).getPassword()).setAdmin(false));
+            }
+            List<Long> userIds = ids(userRepository.saveAll(users), User::getId);
+
+            List<Teacher> teachers = new ArrayList<>();
+            for (int i = 0; i < settings.seedTeachers; i++) {
+                teachers.add(new Teacher().setFirstName("Teacher").setLastName("N" + i));
+            }
+            List<Long> teacherIds = ids(teacherRepository.saveAll(teachers), Teacher::getId);
+
+            List<Session> sessions = new ArrayList<>();
+            for (int i = 0; i < settings.seedSessions; i++) {
+                sessions.add(new Session().setName("Session " + i).setDescription("Load test")
+                        .setDate(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(i)))
+                        .setTeacher(teachers.get(i % teachers.size())).setUsers(new ArrayList<>()));
+            }
+            List<Long> sessionIds = ids(sessionRepository.saveAll(sessions), Session::getId);
+
+            return new Fixtures(userIds, teacherIds, sessionIds);
+        }
+
+        long randomUserId() {
+            return pick(userIds);
+        }
+
+        /**
+         * Account of the virtual user {@code index}, never the login user.
+         */
+        long userId(int index) {
+            return userIds.get(1 + index % (userIds.size() - 1));
+        }
+
+        long randomTeacherId() {
+            return pick(teacherIds);
+        }
+
+        long randomSessionId() {
+            return pick(sessionIds);
+        }
+
+        int sessionCount() {
+            return sessionIds.size();
+        }
+
+        long randomSessionIdExcept(Collection<Long> excluded) {
+            long id;
+            do {
+                id = pick(sessionIds);
+            } while (excluded.contains(id));
+            return id;
+        }
+
+        private static long pick(List<Long> ids) {
+            return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+
+        private static <T> List<Long> ids(List<T> entities, java.util.function.Function<T, Long> id) {
+            List<Long> ids = new ArrayList<>(entities.size());
+            entities.forEach(entity -> ids.add(id.apply(entity)));
+            return Collections.unmodifiableList(ids);
+        }
+    }
+}
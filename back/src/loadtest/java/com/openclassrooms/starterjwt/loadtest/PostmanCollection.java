@@ -0,0 +1,105 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Requests of a Postman v2.1 collection, keyed by "folder/name" (for
+ * example "session/find all"). Only the method, the path and the raw body
+ * are kept: the host comes from the embedded server and the bearer token
+ * from a real login.
+ */
+public final class PostmanCollection {
+
+    public static final class Request {
+        private final String key;
+        private final String method;
+        private final String path;
+        private final String body;
+
+        Request(String key, String method, String path, String body) {
+            this.key = key;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        /** Path with Postman variables left in place, e.g. /api/session/:id. */
+        public String getPath() {
+            return path;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+
+    private final Map<String, Request> requests;
+
+    private PostmanCollection(Map<String, Request> requests) {
+        this.requests = requests;
+    }
+
+    public static PostmanCollection read(Path file, ObjectMapper objectMapper) throws IOException {
+        Map<String, Request> requests = new LinkedHashMap<>();
+        collect(objectMapper.readTree(file.toFile()).path("item"), "", requests);
+        return new PostmanCollection(Collections.unmodifiableMap(requests));
+    }
+
+    public Map<String, Request> getRequests() {
+        return requests;
+    }
+
+    public Request get(String key) {
+        Request request = requests.get(key);
+        if (request == null) {
+            throw new IllegalArgumentException("No request '" + key + "' in the collection, known: " + requests.keySet());
+        }
+        return request;
+    }
+
+    private static void collect(JsonNode items, String folder, Map<String, Request> requests) {
+        for (JsonNode item : items) {
+            String name = item.path("name").asText();
+            if (item.has("item")) {
+                collect(item.get("item"), folder.isEmpty() ? name : folder + "/" + name, requests);
+                continue;
+            }
+
+            JsonNode request = item.path("request");
+            String key = folder.isEmpty() ? name : folder + "/" + name;
+            String body = request.path("body").path("raw").asText(null);
+            requests.put(key, new Request(key, request.path("method").asText("GET"), path(request.path("url")),
+                    body != null && !body.trim().isEmpty() ? body : null));
+        }
+    }
+
+    private static String path(JsonNode url) {
+        if (url.has("path")) {
+            List<String> segments = new ArrayList<>();
+            url.get("path").forEach(segment -> segments.add(segment.asText()));
+            return "/" + String.join("/", segments);
+        }
+
+        // plain string url such as "localhost:8080/api/teacher"
+        String raw = url.asText();
+        int slash = raw.indexOf('/', raw.indexOf("//") + 2);
+        return slash >= 0 ? raw.substring(slash) : "/";
+    }
+}
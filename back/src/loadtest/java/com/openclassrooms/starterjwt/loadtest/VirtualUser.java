@@ -0,0 +1,218 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One simulated client: logs in with the collection's login request, then
+ * sends requests picked from the mix until the end of the run, pausing for
+ * a random think time between two requests. Joins and leaves are made with
+ * the virtual user's own account, which tracks its enrolments so that both
+ * requests measure their success path.
+ */
+final class VirtualUser implements Runnable {
+    private static final AtomicLong REGISTRATIONS = new AtomicLong();
+
+    private static final int LOGIN_ATTEMPTS = 20;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final PostmanCollection collection;
+    private final List<PostmanCollection.Request> mix;
+    private final long[] cumulativeWeights;
+    private final LoadTest.Fixtures fixtures;
+    private final Map<String, EndpointStats> stats;
+    private final long thinkTimeMs;
+    private final long measureFromNanos;
+    private final long endNanos;
+    private final long userId;
+    private final List<Long> enrolments = new ArrayList<>();
+
+    VirtualUser(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl, PostmanCollection collection,
+                List<PostmanCollection.Request> mix, long[] cumulativeWeights, LoadTest.Fixtures fixtures,
+                Map<String, EndpointStats> stats, long thinkTimeMs, long measureFromNanos, long endNanos, int index) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.collection = collection;
+        this.mix = mix;
+        this.cumulativeWeights = cumulativeWeights;
+        this.fixtures = fixtures;
+        this.stats = stats;
+        this.thinkTimeMs = thinkTimeMs;
+        this.measureFromNanos = measureFromNanos;
+        this.endNanos = endNanos;
+        this.userId = fixtures.userId(index);
+    }
+
+    @Override
+    public void run() {
+        try {
+            String token = login();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < endNanos) {
+                long pick = random.nextLong(cumulativeWeights[cumulativeWeights.length - 1]);
+                int index = 0;
+                while (cumulativeWeights[index] <= pick) {
+                    index++;
+                }
+                send(mix.get(index), token);
+
+                if (thinkTimeMs > 0) {
+                    Thread.sleep(random.nextLong(2 * thinkTimeMs + 1));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new IllegalStateException("Virtual user stopped: " + e.getMessage(), e);
+        }
+    }
+
+    private String login() throws IOException, InterruptedException {
+        PostmanCollection.Request login = collection.get(LoadTest.LOGIN);
+        for (int attempt = 0; attempt < LOGIN_ATTEMPTS; attempt++) {
+            HttpResponse<String> response = httpClient.send(build(login, login.getPath(), login.getBody(), null),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                return objectMapper.readTree(response.body()).path("token").asText();
+            }
+            if (response.statusCode() != 503) {
+                throw new IOException("Login failed with status " + response.statusCode() + ": " + response.body());
+            }
+            // hashing queue full: back off as the server asks
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+            Thread.sleep(retryAfter * 1000 + ThreadLocalRandom.current().nextLong(500));
+        }
+        throw new IOException("Login still refused after " + LOGIN_ATTEMPTS + " attempts");
+    }
+
+    private void send(PostmanCollection.Request request, String token) throws InterruptedException {
+        Long sessionId = null;
+        boolean participation = isParticipation(request.getKey());
+        if (participation) {
+            // a join when every session is joined, or a leave when none is, would only measure a 400
+            boolean join = request.getKey().equals(LoadTest.PARTICIPATE)
+                    ? enrolments.size() < fixtures.sessionCount()
+                    : enrolments.isEmpty();
+            request = collection.get(join ? LoadTest.PARTICIPATE : LoadTest.LEAVE);
+            sessionId = join
+                    ? fixtures.randomSessionIdExcept(enrolments)
+                    : enrolments.get(ThreadLocalRandom.current().nextInt(enrolments.size()));
+        }
+
+        HttpRequest httpRequest;
+        try {
+            httpRequest = build(request, path(request, sessionId), body(request), token);
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid body for " + request.getKey(), e);
+        }
+
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = httpClient.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        }
+        long end = System.nanoTime();
+
+        if (participation) {
+            if (request.getKey().equals(LoadTest.PARTICIPATE) && status == 200) {
+                enrolments.add(sessionId);
+            } else if (request.getKey().equals(LoadTest.LEAVE) && (status == 200 || status == 400)) {
+                // 400: not enrolled any more, the local state catches up
+                enrolments.remove(sessionId);
+            }
+        }
+
+        if (start >= measureFromNanos && end <= endNanos) {
+            stats.get(request.getKey()).record(end - start, status);
+        }
+    }
+
+    private HttpRequest build(PostmanCollection.Request request, String path, String body, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .method(request.getMethod(), body != null
+                        ? HttpRequest.BodyPublishers.ofString(body)
+                        : HttpRequest.BodyPublishers.noBody());
+        if (body != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private static boolean isParticipation(String key) {
+        return key.equals(LoadTest.PARTICIPATE) || key.equals(LoadTest.LEAVE);
+    }
+
+    /**
+     * Replaces the Postman path variables with ids of the seeded data:
+     * {@code :userId} and the {@code :id} of the user folder take a user,
+     * the {@code :id} of the teacher folder a teacher, any other {@code :id}
+     * a session. Joins and leaves use the virtual user's account and the
+     * given session.
+     */
+    private String path(PostmanCollection.Request request, Long sessionId) {
+        String folder = request.getKey().contains("/") ? request.getKey().substring(0, request.getKey().indexOf('/')) : "";
+        StringBuilder path = new StringBuilder();
+        for (String segment : request.getPath().substring(1).split("/")) {
+            path.append('/');
+            if (sessionId != null && segment.equals(":id")) {
+                path.append(sessionId);
+            } else if (sessionId != null && segment.equals(":userId")) {
+                path.append(userId);
+            } else if (segment.equals(":userId") || (segment.equals(":id") && folder.equals("user"))) {
+                path.append(fixtures.randomUserId());
+            } else if (segment.equals(":id") && folder.equals("teacher")) {
+                path.append(fixtures.randomTeacherId());
+            } else if (segment.equals(":id")) {
+                path.append(fixtures.randomSessionId());
+            } else {
+                path.append(segment);
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * Points teacher_id at a seeded teacher, and gives each registration a
+     * new email so that it does not fail as a duplicate.
+     */
+    private String body(PostmanCollection.Request request) throws IOException {
+        if (request.getBody() == null) {
+            return null;
+        }
+        JsonNode json = objectMapper.readTree(request.getBody());
+        if (!(json instanceof ObjectNode)) {
+            return request.getBody();
+        }
+
+        ObjectNode body = (ObjectNode) json;
+        if (body.has("teacher_id")) {
+            body.put("teacher_id", fixtures.randomTeacherId());
+        }
+        if (body.has("email") && !request.getKey().equals(LoadTest.LOGIN)) {
+            body.put("email", "loadtest-" + REGISTRATIONS.incrementAndGet() + "@yoga.test");
+        }
+        return objectMapper.writeValueAsString(body);
+    }
+}
@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.cache;
+
+/**
+ * Names of the application caches, shared by the services that fill them
+ * and the listeners that evict them. They must match
+ * {@code spring.cache.cache-names}.
+ */
+public final class CacheNames {
+    public static final String TEACHERS = "teachers";
+
+    public static final String TEACHER = "teacher";
+
+    private CacheNames() {
+    }
+}
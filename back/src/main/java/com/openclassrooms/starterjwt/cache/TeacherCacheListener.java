@@ -0,0 +1,53 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Evicts the cached teacher and the cached teacher list whenever a teacher
+ * row is written. Eviction waits for the commit so that a concurrent read
+ * cannot put the old row back in the cache.
+ */
+public class TeacherCacheListener {
+    private final CacheManager cacheManager;
+
+    public TeacherCacheListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Teacher teacher) {
+        Long id = teacher.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(id);
+                }
+            });
+        } else {
+            evict(id);
+        }
+    }
+
+    private void evict(Long id) {
+        Cache teachers = this.cacheManager.getCache(CacheNames.TEACHERS);
+        if (teachers != null) {
+            teachers.clear();
+        }
+
+        Cache teacher = this.cacheManager.getCache(CacheNames.TEACHER);
+        if (teacher != null && id != null) {
+            teacher.evict(id);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.openclassrooms.starterjwt.config;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the DataSource with datasource-proxy when at least one
+ * {@link QueryExecutionListener} bean is defined (statement counting,
+ * slow-query log). Without listeners the DataSource is left as is.
+ */
+@Configuration
+public class DataSourceProxyConfig {
+  public static final String DATA_SOURCE_NAME = "yoga";
+
+  @Bean
+  public static BeanPostProcessor dataSourceProxyPostProcessor(ObjectProvider<QueryExecutionListener> listeners) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+          return bean;
+        }
+
+        List<QueryExecutionListener> active = listeners.orderedStream().collect(Collectors.toList());
+        if (active.isEmpty()) {
+          return bean;
+        }
+
+        ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(DATA_SOURCE_NAME, (DataSource) bean);
+        active.forEach(builder::listener);
+        return builder.build();
+      }
+    };
+  }
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Enables {@code @Timed} on Spring beans. Controllers are already timed by
+ * the {@code http.server.requests} metric, and the HikariCP pool gauges are
+ * registered by Actuator; the percentiles of both are set in
+ * application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry registry) {
+    return new TimedAspect(registry);
+  }
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import net.ttddyy.dsproxy.listener.DataSourceQueryCountListener;
+
+/**
+ * Opt-in statement counting ({@code oc.app.queryCountEnabled=true}, set by
+ * the dev and test profiles): every statement is counted on the thread that
+ * runs it, and each response carries the number of statements its request
+ * ran.
+ */
+@Configuration
+@ConditionalOnProperty(name = "oc.app.queryCountEnabled", havingValue = "true")
+public class QueryCountConfig {
+
+  @Bean
+  public DataSourceQueryCountListener queryCountListener() {
+    return new DataSourceQueryCountListener();
+  }
+
+  @Bean
+  public FilterRegistrationBean<QueryCountFilter> queryCountFilter() {
+    FilterRegistrationBean<QueryCountFilter> registration = new FilterRegistrationBean<>(new QueryCountFilter());
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+}
@@ -0,0 +1,83 @@
+package com.openclassrooms.starterjwt.config;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import net.ttddyy.dsproxy.QueryCountHolder;
+
+/**
+ * Adds an {@value #HEADER} header with the number of SQL statements the
+ * request ran. The header is written when the body starts, so statements
+ * run while streaming a body, or on another thread by an async handler,
+ * are not included.
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+  public static final String HEADER = "X-Query-Count";
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    QueryCountHolder.clear();
+    CountingResponse countingResponse = new CountingResponse(response);
+    try {
+      filterChain.doFilter(request, countingResponse);
+      countingResponse.writeCount();
+    } finally {
+      QueryCountHolder.clear();
+    }
+  }
+
+  private static class CountingResponse extends HttpServletResponseWrapper {
+    private boolean written;
+
+    CountingResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    void writeCount() {
+      if (!written && !isCommitted()) {
+        setHeader(HEADER, String.valueOf(QueryCountHolder.getGrandTotal().getTotal()));
+      }
+      written = true;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      writeCount();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      writeCount();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      writeCount();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      writeCount();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      writeCount();
+      super.sendError(sc);
+    }
+  }
+}
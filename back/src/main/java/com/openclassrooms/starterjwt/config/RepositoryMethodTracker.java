@@ -0,0 +1,39 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Remembers, per thread, which repository method is running so that the
+ * slow-query log can tell where a statement comes from.
+ */
+public class RepositoryMethodTracker implements MethodInterceptor {
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private final String repositoryName;
+
+  public RepositoryMethodTracker(Class<?> repositoryInterface) {
+    this.repositoryName = repositoryInterface.getSimpleName();
+  }
+
+  /**
+   * @return the outermost repository method running on this thread, or null
+   */
+  public static String current() {
+    return CURRENT.get();
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (CURRENT.get() != null) {
+      return invocation.proceed();
+    }
+
+    CURRENT.set(repositoryName + "." + invocation.getMethod().getName());
+    try {
+      return invocation.proceed();
+    } finally {
+      CURRENT.remove();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.starterjwt.config;
+
+import java.util.Arrays;
+
+import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Opt-in slow-query log ({@code oc.app.slowQueryEnabled=true}): statements
+ * slower than {@code oc.app.slowQueryThresholdMs} are kept in the
+ * {@link SlowQueryLog} with their bind values and the repository method
+ * that ran them.
+ */
+@Configuration
+@ConditionalOnProperty(name = "oc.app.slowQueryEnabled", havingValue = "true")
+public class SlowQueryConfig {
+
+  @Bean
+  public SlowQueryListener slowQueryListener(SlowQueryLog slowQueryLog,
+                                             @Value("${oc.app.slowQueryThresholdMs:200}") long thresholdMs) {
+    return new SlowQueryListener(slowQueryLog, thresholdMs);
+  }
+
+  /**
+   * Adds the tracking advice to every Spring Data repository before it is
+   * created.
+   */
+  @Bean
+  public static BeanPostProcessor repositoryMethodTrackerPostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+          ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+              factory.addRepositoryProxyPostProcessor((proxyFactory, information) -> {
+                // outside the transaction advice, so that the flush at commit is still attributed to the method
+                int position = Arrays.asList(proxyFactory.getAdvisors()).indexOf(ExposeInvocationInterceptor.ADVISOR) + 1;
+                proxyFactory.addAdvice(position, new RepositoryMethodTracker(information.getRepositoryInterface()));
+              }));
+        }
+        return bean;
+      }
+    };
+  }
+}
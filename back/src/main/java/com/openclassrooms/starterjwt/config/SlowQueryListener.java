@@ -0,0 +1,159 @@
+package com.openclassrooms.starterjwt.config;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.openclassrooms.starterjwt.payload.response.SlowQuery;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * Records the statements slower than the threshold in the
+ * {@link SlowQueryLog}. The fast path is a single comparison, so the
+ * listener costs next to nothing for ordinary statements.
+ */
+public class SlowQueryListener implements QueryExecutionListener {
+  static final String REDACTED = "****";
+
+  private static final int MAX_BATCH_ROWS = 10;
+
+  private static final int MAX_VALUE_LENGTH = 100;
+
+  private static final Pattern INSERT = Pattern.compile(
+      "^\\s*insert\\s+into\\s+\\S+\\s*\\(([^)]*)\\)\\s*values\\s*\\(([^)]*)\\)");
+
+  // column on the left of the comparison or assignment that ends right before a '?'
+  private static final Pattern COMPARED_COLUMN = Pattern.compile("([\\w.]+)\\s*(?:=|<>|!=|<=|>=|<|>|like)\\s*$");
+
+  private final SlowQueryLog slowQueryLog;
+
+  private final long thresholdMs;
+
+  public SlowQueryListener(SlowQueryLog slowQueryLog, long thresholdMs) {
+    this.slowQueryLog = slowQueryLog;
+    this.thresholdMs = thresholdMs;
+  }
+
+  @Override
+  public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+  }
+
+  @Override
+  public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    if (execInfo.getElapsedTime() < thresholdMs) {
+      return;
+    }
+
+    String caller = RepositoryMethodTracker.current();
+    for (QueryInfo queryInfo : queryInfoList) {
+      String sql = queryInfo.getQuery();
+      String lower = sql.trim().toLowerCase(Locale.ROOT);
+      if (lower.startsWith("explain")) {
+        continue;
+      }
+
+      Set<Integer> sensitive = sensitiveParameters(lower);
+      List<List<String>> parameters = queryInfo.getParametersList().stream()
+          .limit(MAX_BATCH_ROWS)
+          .map(operations -> values(operations, sensitive))
+          .collect(Collectors.toList());
+
+      List<Object> explainParameters = null;
+      if (lower.startsWith("select") && sensitive.isEmpty() && queryInfo.getParametersList().size() <= 1) {
+        explainParameters = queryInfo.getParametersList().isEmpty()
+            ? new ArrayList<>()
+            : sorted(queryInfo.getParametersList().get(0)).stream()
+                .map(operation -> isSetNull(operation) ? null : operation.getArgs()[1])
+                .collect(Collectors.toList());
+      }
+
+      slowQueryLog.add(new SlowQuery(slowQueryLog.nextId(), LocalDateTime.now(), execInfo.getElapsedTime(), sql,
+          parameters, execInfo.isBatch() ? execInfo.getBatchSize() : 0, caller, explainParameters));
+    }
+  }
+
+  /**
+   * Positions (1-based) of the bind parameters written to, or compared with,
+   * a password column.
+   */
+  static Set<Integer> sensitiveParameters(String lowerSql) {
+    Set<Integer> sensitive = new HashSet<>();
+    if (!lowerSql.contains("password")) {
+      return sensitive;
+    }
+
+    Matcher insert = INSERT.matcher(lowerSql);
+    if (insert.find()) {
+      String[] columns = insert.group(1).split(",");
+      String[] values = insert.group(2).split(",");
+      int position = 0;
+      for (int i = 0; i < values.length; i++) {
+        if (values[i].trim().equals("?")) {
+          position++;
+          if (i < columns.length && columns[i].contains("password")) {
+            sensitive.add(position);
+          }
+        }
+      }
+      return sensitive;
+    }
+
+    int position = 0;
+    for (int i = 0; i < lowerSql.length(); i++) {
+      if (lowerSql.charAt(i) == '?') {
+        position++;
+        Matcher column = COMPARED_COLUMN.matcher(lowerSql.substring(0, i));
+        if (column.find() && column.group(1).contains("password")) {
+          sensitive.add(position);
+        }
+      }
+    }
+    return sensitive;
+  }
+
+  private static List<String> values(List<ParameterSetOperation> operations, Set<Integer> sensitive) {
+    List<String> values = new ArrayList<>();
+    for (ParameterSetOperation operation : sorted(operations)) {
+      Object key = operation.getArgs()[0];
+      if (key instanceof Integer && sensitive.contains(key)) {
+        values.add(REDACTED);
+      } else if (isSetNull(operation)) {
+        values.add("NULL");
+      } else {
+        values.add(format(operation.getArgs()[1]));
+      }
+    }
+    return values;
+  }
+
+  private static List<ParameterSetOperation> sorted(List<ParameterSetOperation> operations) {
+    return operations.stream()
+        .sorted(Comparator.comparing((ParameterSetOperation operation) -> operation.getArgs()[0] instanceof Integer
+            ? (Integer) operation.getArgs()[0]
+            : Integer.MAX_VALUE))
+        .collect(Collectors.toList());
+  }
+
+  private static boolean isSetNull(ParameterSetOperation operation) {
+    return "setNull".equals(operation.getMethod().getName());
+  }
+
+  private static String format(Object value) {
+    if (value instanceof byte[]) {
+      return "<" + ((byte[]) value).length + " bytes>";
+    }
+    String text = String.valueOf(value);
+    return text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) + "..." : text;
+  }
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.payload.response.SlowQuery;
+
+/**
+ * Last {@code oc.app.slowQueryCapacity} slow statements, oldest dropped
+ * first. Stays empty while the slow-query log is disabled.
+ */
+@Component
+public class SlowQueryLog {
+  private final int capacity;
+
+  private final Deque<SlowQuery> queries;
+
+  private long lastId;
+
+  public SlowQueryLog(@Value("${oc.app.slowQueryCapacity:100}") int capacity) {
+    this.capacity = capacity;
+    this.queries = new ArrayDeque<>(capacity);
+  }
+
+  public synchronized long nextId() {
+    return ++lastId;
+  }
+
+  public synchronized void add(SlowQuery query) {
+    if (queries.size() == capacity) {
+      queries.removeFirst();
+    }
+    queries.addLast(query);
+  }
+
+  /**
+   * @return the recorded statements, most recent first
+   */
+  public synchronized List<SlowQuery> findAll() {
+    List<SlowQuery> result = new ArrayList<>(queries);
+    Collections.reverse(result);
+    return result;
+  }
+
+  public synchronized Optional<SlowQuery> findById(long id) {
+    return queries.stream().filter(query -> query.getId() == id).findFirst();
+  }
+
+  public synchronized void clear() {
+    queries.clear();
+  }
+}
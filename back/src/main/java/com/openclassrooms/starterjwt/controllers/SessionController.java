@@ -1,75 +1,216 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.UnknownUserException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.ParticipantsRequest;
+import com.openclassrooms.starterjwt.payload.request.SessionPatchRequest;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.repository.SessionView;
+import com.openclassrooms.starterjwt.repository.Watermark;
+import com.openclassrooms.starterjwt.services.SessionExportService;
+import com.openclassrooms.starterjwt.services.SessionImportService;
 import com.openclassrooms.starterjwt.services.SessionService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = SessionController.NEXT_CURSOR_HEADER)
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    private static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ssXXX";
+
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final SessionExportService sessionExportService;
+    private final SessionImportService sessionImportService;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             SessionExportService sessionExportService,
+                             SessionImportService sessionImportService) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.sessionExportService = sessionExportService;
+        this.sessionImportService = sessionImportService;
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sessions.json\"")
+                .body(this.sessionExportService::export);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importJson(InputStream body) {
+        try {
+            return ResponseEntity.ok().body(this.sessionImportService.importJson(body));
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<?> importCsv(InputStream body) {
+        try {
+            return ResponseEntity.ok().body(this.sessionImportService.importCsv(body));
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            Long sessionId = Long.valueOf(id);
+            Long version = this.sessionService.getVersion(sessionId);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            String eTag = ETags.ofVersion(version);
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+
+            SessionView session = this.sessionService.getViewById(sessionId);
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().eTag(ETags.ofVersion(session.getVersion())).body(this.sessionMapper.viewToDto(session));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(value = "from", required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = {DATE_TIME_PATTERN, DATE_PATTERN}) Date from,
+                                     @RequestParam(value = "to", required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = {DATE_TIME_PATTERN, DATE_PATTERN}) Date to,
+                                     @RequestParam(value = "teacher_id", required = false) String teacherId,
+                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "size", required = false) String size,
+                                     WebRequest request) {
+        try {
+            Long teacher = teacherId != null ? Long.valueOf(teacherId) : null;
+            SessionCursor after = SessionCursor.decode(cursor);
+            int pageSize = size != null ? Integer.parseInt(size) : SessionService.DEFAULT_PAGE_SIZE;
+
+            // Every write on SESSIONS adds or removes a row or stamps updated_at
+            // from the database clock, so an unchanged watermark lets us answer
+            // 304 before loading, mapping and serializing the page.
+            Watermark watermark = this.sessionService.getWatermark();
+            String eTag = ETags.of(watermark.getCount(), watermark.getMaxId(), watermark.getLastUpdate(),
+                    from != null ? from.getTime() : null, to != null ? to.getTime() : null,
+                    teacher, after != null ? after.encode() : null, pageSize);
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+
+            Slice<SessionView> page = this.sessionService.findPage(from, to, teacher, after, pageSize);
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+            if (page.hasNext()) {
+                SessionView last = page.getContent().get(page.getNumberOfElements() - 1);
+                response.header(NEXT_CURSOR_HEADER, new SessionCursor(last.getDate(), last.getId()).encode());
+            }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+            return response.body(this.sessionMapper.viewToDto(page.getContent()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping()
     public ResponseEntity<?> create(@Valid @RequestBody SessionDto sessionDto) {
         log.info(sessionDto);
 
-        Session session = this.sessionService.create(this.sessionMapper.toEntity(sessionDto));
+        try {
+            Session session = this.sessionService.create(this.sessionMapper.toEntity(sessionDto));
 
-        log.info(session);
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            log.info(session);
+            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+        } catch (UnknownUserException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
+    public ResponseEntity<?> update(@PathVariable("id") String id,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                    @Valid @RequestBody SessionDto sessionDto) {
         try {
-            Session session = this.sessionService.update(Long.parseLong(id), this.sessionMapper.toEntity(sessionDto));
+            Long sessionId = Long.parseLong(id);
+            Long expectedVersion = ETags.ifMatchVersion(ifMatch);
+            Session session = this.sessionService.update(sessionId, this.sessionMapper.toEntity(sessionDto), expectedVersion);
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().eTag(ETags.ofVersion(session.getVersion())).body(this.sessionMapper.toDto(session));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (UnknownUserException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return concurrentUpdate();
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patch(@PathVariable("id") String id,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                   @RequestBody SessionPatchRequest patch) {
+        try {
+            Long sessionId = Long.valueOf(id);
+            this.sessionService.patch(sessionId, patch, ETags.ifMatchVersion(ifMatch));
+
+            // Answered from the aggregated view so that no User is loaded
+            SessionView session = this.sessionService.getViewById(sessionId);
+            return ResponseEntity.ok().eTag(ETags.ofVersion(session.getVersion())).body(this.sessionMapper.viewToDto(session));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return concurrentUpdate();
         }
     }
 
+    private static ResponseEntity<?> concurrentUpdate() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(new MessageResponse("Error: the session was modified by another request"));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
@@ -97,6 +238,24 @@ public class SessionController {
         }
     }
 
+    @PostMapping("/{id}/participants")
+    public ResponseEntity<?> addParticipants(@PathVariable("id") String id, @Valid @RequestBody ParticipantsRequest request) {
+        try {
+            return ResponseEntity.ok().body(this.sessionService.addParticipants(Long.parseLong(id), request.getUserIds()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/{id}/participants")
+    public ResponseEntity<?> removeParticipants(@PathVariable("id") String id, @Valid @RequestBody ParticipantsRequest request) {
+        try {
+            return ResponseEntity.ok().body(this.sessionService.removeParticipants(Long.parseLong(id), request.getUserIds()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("{id}/participate/{userId}")
     public ResponseEntity<?> noLongerParticipate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
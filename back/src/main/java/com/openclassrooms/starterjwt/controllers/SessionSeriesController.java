@@ -0,0 +1,93 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/series")
+public class SessionSeriesController {
+    private final SessionSeriesMapper sessionSeriesMapper;
+    private final SessionSeriesService sessionSeriesService;
+
+
+    public SessionSeriesController(SessionSeriesService sessionSeriesService,
+                                   SessionSeriesMapper sessionSeriesMapper) {
+        this.sessionSeriesMapper = sessionSeriesMapper;
+        this.sessionSeriesService = sessionSeriesService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+        try {
+            SessionSeries series = this.sessionSeriesService.getById(Long.valueOf(id));
+
+            if (series == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping()
+    public ResponseEntity<?> findAll() {
+        return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(this.sessionSeriesService.findAll()));
+    }
+
+    @PostMapping()
+    public ResponseEntity<?> create(@Valid @RequestBody SessionSeriesDto sessionSeriesDto) {
+        try {
+            SessionSeries series = toEntity(sessionSeriesDto);
+
+            return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(this.sessionSeriesService.create(series)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionSeriesDto sessionSeriesDto) {
+        try {
+            Long seriesId = Long.valueOf(id);
+            SessionSeries series = toEntity(sessionSeriesDto);
+
+            return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(this.sessionSeriesService.update(seriesId, series)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(@PathVariable("id") String id) {
+        try {
+            this.sessionSeriesService.delete(Long.valueOf(id));
+
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private SessionSeries toEntity(SessionSeriesDto sessionSeriesDto) {
+        SessionSeries series = this.sessionSeriesMapper.toEntity(sessionSeriesDto);
+        if (series.getTeacher() == null) {
+            throw new IllegalArgumentException("Unknown teacher id: " + sessionSeriesDto.getTeacher_id());
+        }
+        if (series.getEndsAt() != null && !series.getEndsAt().after(series.getStartsAt())) {
+            throw new IllegalArgumentException("endsAt must be after startsAt");
+        }
+        return series;
+    }
+}
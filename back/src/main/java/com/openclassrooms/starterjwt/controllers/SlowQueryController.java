@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.services.SlowQueryService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin view of the slow-query log. The list is empty unless
+ * {@code oc.app.slowQueryEnabled} is set.
+ */
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/admin/slow-queries")
+@PreAuthorize("hasRole('ADMIN')")
+public class SlowQueryController {
+    private final SlowQueryService slowQueryService;
+
+    public SlowQueryController(SlowQueryService slowQueryService) {
+        this.slowQueryService = slowQueryService;
+    }
+
+    @GetMapping()
+    public ResponseEntity<?> findAll() {
+        return ResponseEntity.ok().body(this.slowQueryService.findAll());
+    }
+
+    @DeleteMapping()
+    public ResponseEntity<?> clear() {
+        this.slowQueryService.clear();
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/{id}/explain")
+    public ResponseEntity<?> explain(@PathVariable("id") String id) {
+        try {
+            return ResponseEntity.ok().body(this.slowQueryService.explain(Long.parseLong(id)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+}
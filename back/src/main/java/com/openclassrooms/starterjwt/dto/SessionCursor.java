@@ -0,0 +1,40 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque keyset position in the session listing, ordered by (date, id).
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class SessionCursor {
+    private final Date date;
+
+    private final Long id;
+
+    public String encode() {
+        String raw = date.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SessionCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid session cursor: " + token);
+        }
+
+        return new SessionCursor(new Date(Long.parseLong(parts[0])), Long.parseLong(parts[1]));
+    }
+}
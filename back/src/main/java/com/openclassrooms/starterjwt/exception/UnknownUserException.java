@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.List;
+
+@ResponseStatus(value= HttpStatus.BAD_REQUEST)
+public class UnknownUserException extends RuntimeException {
+    private final List<Long> userIds;
+
+    public UnknownUserException(List<Long> userIds) {
+        super("Unknown user ids: " + userIds);
+        this.userIds = userIds;
+    }
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+}
@@ -0,0 +1,78 @@
+package com.openclassrooms.starterjwt.jfr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * With the {@code jfr} profile, records for the whole life of the
+ * application: the JDK settings named by {@code oc.app.jfrBaseSettings}
+ * plus the yoga events of {@code jfr/yoga.jfc}, keeping the last
+ * {@code oc.app.jfrMaxAgeMinutes} minutes.
+ */
+@Component
+@Profile("jfr")
+public class FlightRecording implements InitializingBean, DisposableBean {
+  static final String SETTINGS = "/jfr/yoga.jfc";
+
+  private final String baseSettings;
+
+  private final Path destination;
+
+  private final Duration maxAge;
+
+  private Recording recording;
+
+  public FlightRecording(@Value("${oc.app.jfrBaseSettings:profile}") String baseSettings,
+                         @Value("${oc.app.jfrFile:yoga.jfr}") String destination,
+                         @Value("${oc.app.jfrMaxAgeMinutes:60}") long maxAgeMinutes) {
+    this.baseSettings = baseSettings;
+    this.destination = Paths.get(destination);
+    this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+  }
+
+  @Override
+  public void afterPropertiesSet() throws IOException, ParseException {
+    Map<String, String> settings = new HashMap<>(Configuration.getConfiguration(baseSettings).getSettings());
+    try (InputStream in = FlightRecording.class.getResourceAsStream(SETTINGS);
+         Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+      settings.putAll(Configuration.create(reader).getSettings());
+    }
+
+    recording = new Recording(settings);
+    recording.setName("yoga");
+    recording.setToDisk(true);
+    recording.setMaxAge(maxAge);
+    recording.setDestination(destination);
+    recording.setDumpOnExit(true);
+    recording.start();
+  }
+
+  /**
+   * Stopping writes the recording to its destination.
+   */
+  @Override
+  public void destroy() {
+    if (recording != null) {
+      recording.stop();
+      recording.close();
+    }
+  }
+}
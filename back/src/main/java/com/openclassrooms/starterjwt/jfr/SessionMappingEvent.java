@@ -0,0 +1,34 @@
+package com.openclassrooms.starterjwt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.openclassrooms.yoga.SessionMapping")
+@Label("Session Mapping")
+@Description("SessionMapper.toEntity or toDto, participant lookups included")
+@Category({"Yoga", "Sessions"})
+@StackTrace(false)
+public class SessionMappingEvent extends Event {
+  @Label("Direction")
+  private String direction;
+
+  @Label("Session Id")
+  private long sessionId;
+
+  @Label("Participants")
+  private int participants;
+
+  public void commit(String direction, Long sessionId, int participants) {
+    end();
+    if (shouldCommit()) {
+      this.direction = direction;
+      this.sessionId = sessionId != null ? sessionId : 0;
+      this.participants = participants;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.openclassrooms.starterjwt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.openclassrooms.yoga.SessionOperation")
+@Label("Session Operation")
+@Description("Call of a public SessionService method, transaction included")
+@Category({"Yoga", "Sessions"})
+@StackTrace(false)
+public class SessionOperationEvent extends Event {
+  @Label("Operation")
+  private String operation;
+
+  @Label("Session Id")
+  private long sessionId;
+
+  @Label("Participants")
+  @Description("Users or sessions handled by the call")
+  private int participants;
+
+  @Label("Outcome")
+  @Description("ok, or the simple name of the exception thrown")
+  private String outcome;
+
+  public void commit(String operation, Long sessionId, int participants, String outcome) {
+    end();
+    if (shouldCommit()) {
+      this.operation = operation;
+      this.sessionId = sessionId != null ? sessionId : 0;
+      this.participants = participants;
+      this.outcome = outcome;
+      commit();
+    }
+  }
+}
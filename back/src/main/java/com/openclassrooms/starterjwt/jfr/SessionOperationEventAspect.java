@@ -0,0 +1,65 @@
+package com.openclassrooms.starterjwt.jfr;
+
+import java.util.Collection;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.models.Session;
+
+/**
+ * Emits a {@link SessionOperationEvent} for every public
+ * {@link com.openclassrooms.starterjwt.services.SessionService} method.
+ * When the event is not enabled in the running recording, the call goes
+ * straight through. Participants are only counted from collections already
+ * loaded.
+ */
+@Aspect
+@Component
+public class SessionOperationEventAspect {
+
+  @Around("execution(public * com.openclassrooms.starterjwt.services.SessionService.*(..))")
+  public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+    SessionOperationEvent event = new SessionOperationEvent();
+    if (!event.isEnabled()) {
+      return joinPoint.proceed();
+    }
+
+    event.begin();
+    Object result = null;
+    String outcome = "ok";
+    try {
+      result = joinPoint.proceed();
+      return result;
+    } catch (Throwable e) {
+      outcome = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      Object[] args = joinPoint.getArgs();
+      event.commit(joinPoint.getSignature().getName(), sessionId(args, result), participants(args, result), outcome);
+    }
+  }
+
+  private static Long sessionId(Object[] args, Object result) {
+    if (args.length > 0 && args[0] instanceof Long) {
+      return (Long) args[0];
+    }
+    return result instanceof Session ? ((Session) result).getId() : null;
+  }
+
+  private static int participants(Object[] args, Object result) {
+    for (Object arg : args) {
+      if (arg instanceof Collection) {
+        return ((Collection<?>) arg).size();
+      }
+    }
+    // a lazy participant list is reported as 0 rather than loaded
+    if (result instanceof Session && Hibernate.isInitialized(((Session) result).getUsers())) {
+      return ((Session) result).getUsers().size();
+    }
+    return 0;
+  }
+}
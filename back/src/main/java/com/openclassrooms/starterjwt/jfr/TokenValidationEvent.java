@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.openclassrooms.yoga.TokenValidation")
+@Label("Token Validation")
+@Description("Bearer token check in AuthTokenFilter, token cache included")
+@Category({"Yoga", "Security"})
+@StackTrace(false)
+public class TokenValidationEvent extends Event {
+  @Label("Outcome")
+  @Description("none, cached, loaded, rejected or error")
+  private String outcome;
+
+  public void commit(String outcome) {
+    end();
+    if (shouldCommit()) {
+      this.outcome = outcome;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.openclassrooms.yoga.UserResolution")
+@Label("User Resolution")
+@Description("User loaded by UserDetailsServiceImpl")
+@Category({"Yoga", "Security"})
+@StackTrace(false)
+public class UserResolutionEvent extends Event {
+  @Label("Found")
+  private boolean found;
+
+  @Label("Admin")
+  private boolean admin;
+
+  public void commit(boolean found, boolean admin) {
+    end();
+    if (shouldCommit()) {
+      this.found = found;
+      this.admin = admin;
+      commit();
+    }
+  }
+}
@@ -1,19 +1,26 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.UnknownUserException;
+import com.openclassrooms.starterjwt.jfr.SessionMappingEvent;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionView;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -28,9 +35,13 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "users", expression = "java(this.resolveUsers(sessionDto.getUsers()))"),
+            @Mapping(target = "booked", ignore = true),
+            @Mapping(target = "seriesId", ignore = true),
+            @Mapping(target = "version", ignore = true),
     })
-    public abstract Session toEntity(SessionDto sessionDto);
+    @Named("mapToEntity")
+    abstract Session mapToEntity(SessionDto sessionDto);
 
 
     @Mappings({
@@ -38,5 +49,110 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
             @Mapping(source = "session.teacher.id", target = "teacher_id"),
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
-    public abstract SessionDto toDto(Session session);
+    @Named("mapToDto")
+    abstract SessionDto mapToDto(Session session);
+
+    // The generated mappings are wrapped so that each call is a JFR event;
+    // being @Named, they are never picked by MapStruct on their own.
+    @Override
+    public Session toEntity(SessionDto sessionDto) {
+        SessionMappingEvent event = new SessionMappingEvent();
+        event.begin();
+        Session session = mapToEntity(sessionDto);
+        event.commit("toEntity", sessionDto != null ? sessionDto.getId() : null,
+                session != null && session.getUsers() != null ? session.getUsers().size() : 0);
+        return session;
+    }
+
+    @Override
+    public SessionDto toDto(Session session) {
+        SessionMappingEvent event = new SessionMappingEvent();
+        event.begin();
+        SessionDto sessionDto = mapToDto(session);
+        event.commit("toDto", session != null ? session.getId() : null,
+                sessionDto != null && sessionDto.getUsers() != null ? sessionDto.getUsers().size() : 0);
+        return sessionDto;
+    }
+
+    public SessionDto viewToDto(SessionView view) {
+        if (view == null) {
+            return null;
+        }
+
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setId(view.getId());
+        sessionDto.setName(view.getName());
+        sessionDto.setDate(view.getDate() != null ? new Date(view.getDate().getTime()) : null);
+        sessionDto.setTeacher_id(view.getTeacherId());
+        sessionDto.setDescription(view.getDescription());
+        sessionDto.setUsers(parseUserIds(view.getUserIds()));
+        sessionDto.setCapacity(view.getCapacity());
+        sessionDto.setBooked(view.getBooked());
+        sessionDto.setSeriesId(view.getSeriesId());
+        sessionDto.setVersion(view.getVersion());
+        sessionDto.setCreatedAt(toLocalDateTime(view.getCreatedAt()));
+        sessionDto.setUpdatedAt(toLocalDateTime(view.getUpdatedAt()));
+
+        return sessionDto;
+    }
+
+    public List<SessionDto> viewToDto(List<SessionView> views) {
+        if (views == null) {
+            return null;
+        }
+
+        return views.stream().map(this::viewToDto).collect(Collectors.toList());
+    }
+
+    private static List<Long> parseUserIds(Object userIds) {
+        if (userIds == null) {
+            return new ArrayList<>();
+        }
+
+        String joined = userIds instanceof byte[]
+                ? new String((byte[]) userIds, StandardCharsets.UTF_8)
+                : userIds.toString();
+
+        return Arrays.stream(joined.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        if (date == null) {
+            return null;
+        }
+        if (date instanceof Timestamp) {
+            return ((Timestamp) date).toLocalDateTime();
+        }
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Loads every referenced user with a single query and keeps the order of
+     * the ids. Unknown ids are reported through {@link UnknownUserException}.
+     */
+    protected List<User> resolveUsers(List<Long> userIds) {
+        List<Long> ids = Optional.ofNullable(userIds).orElseGet(Collections::emptyList).stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, User> usersById = this.userService.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Long> unknownIds = ids.stream()
+                .filter(id -> !usersById.containsKey(id))
+                .collect(Collectors.toList());
+        if (!unknownIds.isEmpty()) {
+            throw new UnknownUserException(unknownIds);
+        }
+
+        return ids.stream().map(usersById::get).collect(Collectors.toList());
+    }
 }
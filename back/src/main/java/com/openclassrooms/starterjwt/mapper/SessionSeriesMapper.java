@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+@Mapper(componentModel = "spring")
+public abstract class SessionSeriesMapper implements EntityMapper<SessionSeriesDto, SessionSeries> {
+
+    @Autowired
+    TeacherService teacherService;
+
+    @Mappings({
+            @Mapping(target = "teacher", expression = "java(sessionSeriesDto.getTeacher_id() != null ? this.teacherService.findById(sessionSeriesDto.getTeacher_id()) : null)"),
+            @Mapping(target = "generatedUntil", ignore = true),
+    })
+    public abstract SessionSeries toEntity(SessionSeriesDto sessionSeriesDto);
+
+    @Mappings({
+            @Mapping(source = "sessionSeries.teacher.id", target = "teacher_id"),
+    })
+    public abstract SessionSeriesDto toDto(SessionSeries sessionSeries);
+}
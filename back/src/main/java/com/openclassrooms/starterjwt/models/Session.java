@@ -3,11 +3,14 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.ColumnTransformer;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -18,6 +21,9 @@ import java.util.List;
 @Entity
 @Table(name = "SESSIONS")
 @EntityListeners(AuditingEntityListener.class)
+// Only the changed columns are written, so that a save never overwrites the
+// booked counter maintained by the seat statements
+@DynamicUpdate
 @Data
 @Accessors(chain = true)
 @EqualsAndHashCode(of = {"id"})
@@ -27,7 +33,9 @@ import java.util.List;
 @ToString
 public class Session {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "sessions_id")
+    @TableGenerator(name = "sessions_id", table = "ID_GENERATOR", pkColumnName = "entity",
+            valueColumnName = "next_val", pkColumnValue = "SESSIONS", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -45,18 +53,35 @@ public class Session {
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @Min(1)
+    private Integer capacity;
+
+    @Column(nullable = false)
+    private int booked;
+
+    @Column(name = "series_id")
+    private Long seriesId;
+
+    @Version
+    private Long version;
+
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
-            inverseJoinColumns = @JoinColumn( name = "user_id" ) )
+            inverseJoinColumns = @JoinColumn( name = "user_id" ),
+            uniqueConstraints = @UniqueConstraint(name = "uk_participate_session_user", columnNames = {"session_id", "user_id"}) )
+    @ToString.Exclude
     private List<User> users;
 
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    // Written from the database clock, like the seat statements, so that
+    // MAX(updated_at) of the list watermark only moves forward
     @UpdateTimestamp
+    @ColumnTransformer(write = "COALESCE(CURRENT_TIMESTAMP(6), ?)")
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 }
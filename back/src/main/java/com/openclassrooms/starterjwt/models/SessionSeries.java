@@ -0,0 +1,82 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * A recurring class. Its occurrences are plain {@link Session} rows pointing
+ * back through {@code series_id}, created up to {@code generatedUntil}.
+ */
+@Entity
+@Table(name = "SESSION_SERIES")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "session_series_id")
+    @TableGenerator(name = "session_series_id", table = "ID_GENERATOR", pkColumnName = "entity",
+            valueColumnName = "next_val", pkColumnValue = "SESSION_SERIES", allocationSize = 50)
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @NotNull
+    @ManyToOne
+    @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    private Teacher teacher;
+
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Recurrence rule, see {@link com.openclassrooms.starterjwt.services.RecurrenceRule}.
+     */
+    @NotBlank
+    @Size(max = 100)
+    private String recurrence;
+
+    @NotNull
+    @Column(name = "starts_at")
+    private Date startsAt;
+
+    @Column(name = "ends_at")
+    private Date endsAt;
+
+    /**
+     * Every occurrence before this instant has been created.
+     */
+    @NotNull
+    @Column(name = "generated_until")
+    private Date generatedUntil;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
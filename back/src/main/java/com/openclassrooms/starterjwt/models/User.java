@@ -26,7 +26,9 @@ import java.time.LocalDateTime;
 @ToString
 public class User {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id")
+  @TableGenerator(name = "users_id", table = "ID_GENERATOR", pkColumnName = "entity",
+          valueColumnName = "next_val", pkColumnValue = "USERS", allocationSize = 50)
   private Long id;
 
   @NonNull
@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class ParticipantsRequest {
+  @NotEmpty
+  @Size(max = 500)
+  private List<@NotNull Long> userIds;
+}
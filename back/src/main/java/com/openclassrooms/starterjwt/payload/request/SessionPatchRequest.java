@@ -0,0 +1,72 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+
+/**
+ * JSON merge patch of a session (RFC 7386). Jackson only calls the setters
+ * of the members present in the document, so an explicit null can be told
+ * apart from an absent member.
+ */
+@Getter
+public class SessionPatchRequest {
+  @JsonIgnore
+  private final Set<String> fields = new HashSet<>();
+
+  @JsonIgnore
+  private final Set<String> unsupportedFields = new TreeSet<>();
+
+  private String name;
+
+  private Date date;
+
+  private String description;
+
+  private Long teacher_id;
+
+  private Integer capacity;
+
+  public boolean has(String field) {
+    return this.fields.contains(field);
+  }
+
+  public void setName(String name) {
+    this.name = name;
+    this.fields.add("name");
+  }
+
+  public void setDate(Date date) {
+    this.date = date;
+    this.fields.add("date");
+  }
+
+  public void setDescription(String description) {
+    this.description = description;
+    this.fields.add("description");
+  }
+
+  public void setTeacher_id(Long teacher_id) {
+    this.teacher_id = teacher_id;
+    this.fields.add("teacher_id");
+  }
+
+  public void setCapacity(Integer capacity) {
+    this.capacity = capacity;
+    this.fields.add("capacity");
+  }
+
+  /**
+   * Participants and computed columns have their own endpoints.
+   */
+  @JsonAnySetter
+  public void setUnsupported(String field, Object value) {
+    this.unsupportedFields.add(field);
+  }
+}
@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+public class ImportReport {
+  private int received;
+
+  private int imported;
+
+  private final List<RowError> errors = new ArrayList<>();
+
+  public void rowReceived() {
+    this.received++;
+  }
+
+  public void rowsImported(int count) {
+    this.imported += count;
+  }
+
+  public void addError(int row, String message) {
+    this.errors.add(new RowError(row, message));
+  }
+
+  public void sortErrors() {
+    this.errors.sort(Comparator.comparingInt(RowError::getRow));
+  }
+
+  /**
+   * Row numbers start at 1: the first element of a JSON array, or the
+   * first line after the header of a CSV file.
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class RowError {
+    private final int row;
+
+    private final String message;
+  }
+}
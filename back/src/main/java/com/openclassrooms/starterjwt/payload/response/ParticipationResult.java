@@ -0,0 +1,21 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ParticipationResult {
+  public enum Status {
+    ADDED,
+    REMOVED,
+    ALREADY_PRESENT,
+    NOT_PRESENT,
+    UNKNOWN_USER,
+    SESSION_FULL
+  }
+
+  private Long userId;
+
+  private Status status;
+}
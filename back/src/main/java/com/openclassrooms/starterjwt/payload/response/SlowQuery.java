@@ -0,0 +1,37 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SlowQuery {
+  private long id;
+
+  private LocalDateTime at;
+
+  private long elapsedMs;
+
+  private String sql;
+
+  /** Bind values of each execution of a batch, password columns redacted. */
+  private List<List<String>> parameters;
+
+  private int batchSize;
+
+  /** Repository method that ran the statement, null when unknown. */
+  private String caller;
+
+  /** Original bind values, kept only for SELECT statements that can be explained. */
+  @JsonIgnore
+  private List<Object> explainParameters;
+
+  public boolean isExplainable() {
+    return explainParameters != null;
+  }
+}
@@ -2,8 +2,140 @@ package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, SessionRepositoryCustom {
+    String VIEW_COLUMNS = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description,"
+            + " s.teacher_id AS teacherId, s.capacity AS capacity, s.booked AS booked, s.series_id AS seriesId,"
+            + " s.version AS version, s.created_at AS createdAt, s.updated_at AS updatedAt,"
+            + " GROUP_CONCAT(p.user_id ORDER BY p.user_id) AS userIds";
+
+    String VIEW_JOIN = " LEFT JOIN PARTICIPATE p ON p.session_id = s.id";
+
+    String VIEW_SELECT = VIEW_COLUMNS + " FROM SESSIONS s" + VIEW_JOIN;
+
+    String VIEW_GROUP_BY = " GROUP BY s.id, s.name, s.date, s.description, s.teacher_id, s.capacity, s.booked, s.series_id, s.version, s.created_at, s.updated_at";
+
+    // Same rows as (date, id) > (:afterDate, :afterId), written so that the
+    // date bounds form an index range on (date, id)
+    String KEYSET_WHERE = " s.date >= :afterDate AND (s.date > :afterDate OR s.id > :afterId) AND s.date < :to";
+
+    String PAGE_ORDER = " ORDER BY s.date ASC, s.id ASC";
+
+    // The page of SESSIONS rows is read first, in index order and stopping at
+    // :limit; only those rows are then joined to PARTICIPATE and grouped
+    String VIEW_PAGE = VIEW_COLUMNS
+            + " FROM (SELECT * FROM SESSIONS s WHERE" + KEYSET_WHERE + PAGE_ORDER + " LIMIT :limit) s"
+            + VIEW_JOIN + VIEW_GROUP_BY + PAGE_ORDER;
+
+    String VIEW_PAGE_BY_TEACHER = VIEW_COLUMNS
+            + " FROM (SELECT * FROM SESSIONS s WHERE s.teacher_id = :teacherId AND" + KEYSET_WHERE + PAGE_ORDER + " LIMIT :limit) s"
+            + VIEW_JOIN + VIEW_GROUP_BY + PAGE_ORDER;
+
+    /**
+     * Takes one seat if the session has room left. The row lock held by the
+     * UPDATE serializes concurrent bookings of the same session only.
+     */
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET booked = booked + 1, version = version + 1, updated_at = CURRENT_TIMESTAMP(6)"
+            + " WHERE id = :id AND (capacity IS NULL OR booked < capacity)", nativeQuery = true)
+    int reserveSeat(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET booked = booked - 1, version = version + 1, updated_at = CURRENT_TIMESTAMP(6) WHERE id = :id AND booked > 0", nativeQuery = true)
+    int releaseSeat(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "INSERT INTO PARTICIPATE (session_id, user_id) SELECT :sessionId, :userId FROM DUAL"
+            + " WHERE NOT EXISTS (SELECT 1 FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId)", nativeQuery = true)
+    int addParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET booked = booked + :delta, version = version + 1, updated_at = CURRENT_TIMESTAMP(6) WHERE id = :id", nativeQuery = true)
+    int adjustBooked(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Applies a series edit to its occurrences from {@code from} on. A lower
+     * capacity never goes below the seats already booked.
+     */
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET name = :name, description = :description, teacher_id = :teacherId,"
+            + " capacity = GREATEST(booked, :capacity), version = version + 1, updated_at = CURRENT_TIMESTAMP(6)"
+            + " WHERE series_id = :seriesId AND date >= :from", nativeQuery = true)
+    int updateSeriesOccurrences(@Param("seriesId") Long seriesId,
+                                @Param("from") Date from,
+                                @Param("name") String name,
+                                @Param("description") String description,
+                                @Param("teacherId") Long teacherId,
+                                @Param("capacity") int capacity);
+
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET name = :name, description = :description, teacher_id = :teacherId,"
+            + " capacity = NULL, version = version + 1, updated_at = CURRENT_TIMESTAMP(6)"
+            + " WHERE series_id = :seriesId AND date >= :from", nativeQuery = true)
+    int updateUnlimitedSeriesOccurrences(@Param("seriesId") Long seriesId,
+                                         @Param("from") Date from,
+                                         @Param("name") String name,
+                                         @Param("description") String description,
+                                         @Param("teacherId") Long teacherId);
+
+    /**
+     * Occurrences without bookings have no PARTICIPATE rows, so they can be
+     * deleted without touching the join table.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM SESSIONS WHERE series_id = :seriesId AND date >= :from AND booked = 0", nativeQuery = true)
+    int deleteUnbookedSeriesOccurrences(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    /**
+     * Turns the remaining occurrences from {@code from} on into one-off sessions.
+     */
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET series_id = NULL, version = version + 1, updated_at = CURRENT_TIMESTAMP(6) WHERE series_id = :seriesId AND date >= :from", nativeQuery = true)
+    int detachSeriesOccurrences(@Param("seriesId") Long seriesId, @Param("from") Date from);
+
+    @Query("select count(s) as count, max(s.id) as maxId, max(s.updatedAt) as lastUpdate from Session s")
+    Watermark findWatermark();
+
+    @Query("select s.version from Session s where s.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Locks the session row, and only that row, until the end of the
+     * transaction so that bulk enrolments see a stable seat count.
+     */
+    @Query(value = "SELECT s.capacity AS capacity, s.booked AS booked FROM SESSIONS s WHERE s.id = :id FOR UPDATE", nativeQuery = true)
+    Optional<SessionSeats> lockSeats(@Param("id") Long id);
+
+    @Query("select u.id from Session s join s.users u where s.id = :id and u.id in :userIds")
+    List<Long> findParticipantIds(@Param("id") Long id, @Param("userIds") Collection<Long> userIds);
+
+    @Query(value = VIEW_SELECT + " WHERE s.id = :id" + VIEW_GROUP_BY, nativeQuery = true)
+    Optional<SessionView> findViewById(@Param("id") Long id);
+
+    @Query(value = VIEW_PAGE, nativeQuery = true)
+    List<SessionView> findViewPage(@Param("afterDate") Date afterDate,
+                                   @Param("afterId") Long afterId,
+                                   @Param("to") Date to,
+                                   @Param("limit") int limit);
+
+    @Query(value = VIEW_PAGE_BY_TEACHER, nativeQuery = true)
+    List<SessionView> findViewPageByTeacher(@Param("teacherId") Long teacherId,
+                                            @Param("afterDate") Date afterDate,
+                                            @Param("afterId") Long afterId,
+                                            @Param("to") Date to,
+                                            @Param("limit") int limit);
 }
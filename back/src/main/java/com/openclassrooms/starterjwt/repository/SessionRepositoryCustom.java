@@ -0,0 +1,9 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.List;
+
+public interface SessionRepositoryCustom {
+    void insertParticipants(Long sessionId, List<Long> userIds);
+
+    void deleteParticipants(Long sessionId, List<Long> userIds);
+}
@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * PARTICIPATE rows written through one JDBC batch instead of one
+ * statement per user.
+ */
+public class SessionRepositoryCustomImpl implements SessionRepositoryCustom {
+    private final JdbcTemplate jdbcTemplate;
+
+    public SessionRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertParticipants(Long sessionId, List<Long> userIds) {
+        this.jdbcTemplate.batchUpdate(
+                "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)",
+                userIds,
+                userIds.size(),
+                (ps, userId) -> {
+                    ps.setLong(1, sessionId);
+                    ps.setLong(2, userId);
+                });
+    }
+
+    @Override
+    public void deleteParticipants(Long sessionId, List<Long> userIds) {
+        this.jdbcTemplate.batchUpdate(
+                "DELETE FROM PARTICIPATE WHERE session_id = ? AND user_id = ?",
+                userIds,
+                userIds.size(),
+                (ps, userId) -> {
+                    ps.setLong(1, sessionId);
+                    ps.setLong(2, userId);
+                });
+    }
+}
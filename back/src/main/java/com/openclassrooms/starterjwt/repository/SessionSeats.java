@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * Capacity and booked seats of a session, read under a row lock.
+ */
+public interface SessionSeats {
+    Integer getCapacity();
+
+    Integer getBooked();
+}
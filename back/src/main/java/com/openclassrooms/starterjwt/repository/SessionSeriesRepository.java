@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SessionSeriesRepository extends JpaRepository<SessionSeries, Long> {
+    /**
+     * Serializes expansions and edits of one series, so that two scheduler
+     * runs never create the same occurrences.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from SessionSeries s where s.id = :id")
+    Optional<SessionSeries> lockById(@Param("id") Long id);
+
+    @Query("select s.id from SessionSeries s where s.generatedUntil < :horizon"
+            + " and (s.endsAt is null or s.generatedUntil < s.endsAt)")
+    List<Long> findIdsToExpand(@Param("horizon") Date horizon);
+}
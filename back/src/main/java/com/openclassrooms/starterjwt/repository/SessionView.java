@@ -0,0 +1,37 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.Date;
+
+/**
+ * Read-only projection of a session row with its participant ids
+ * aggregated from PARTICIPATE, so that no User entity is loaded.
+ */
+public interface SessionView {
+    Long getId();
+
+    String getName();
+
+    Date getDate();
+
+    String getDescription();
+
+    Long getTeacherId();
+
+    Integer getCapacity();
+
+    Integer getBooked();
+
+    Long getSeriesId();
+
+    Long getVersion();
+
+    /**
+     * Comma separated participant ids, {@code null} when nobody participates.
+     * Typed as Object because drivers may return it as a String or a byte[].
+     */
+    Object getUserIds();
+
+    Date getCreatedAt();
+
+    Date getUpdatedAt();
+}
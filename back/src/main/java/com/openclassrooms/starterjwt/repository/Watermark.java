@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row count, highest id and latest update of a table. Any insert, update
+ * or delete changes at least one of the three.
+ */
+public interface Watermark {
+    Long getCount();
+
+    Long getMaxId();
+
+    LocalDateTime getLastUpdate();
+}
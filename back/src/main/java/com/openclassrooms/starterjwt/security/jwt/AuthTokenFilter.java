@@ -17,8 +17,13 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.jfr.TokenValidationEvent;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private JwtUtils jwtUtils;
@@ -26,17 +31,42 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private VerifiedTokenCache tokenCache;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
+    // outcome: none (no token), cached, loaded, rejected or error
+    Timer.Sample sample = Timer.start(meterRegistry);
+    TokenValidationEvent event = new TokenValidationEvent();
+    event.begin();
+    String outcome = "none";
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
+      UserDetails userDetails = jwt != null ? tokenCache.get(jwt) : null;
+      if (userDetails != null) {
+        outcome = "cached";
+      }
+
+      if (userDetails == null && jwt != null) {
+        JwtValidationResult token = jwtUtils.parseAndValidate(jwt);
+        outcome = "rejected";
+
+        if (token.isValid()) {
+          UserDetailsImpl loaded = (UserDetailsImpl) userDetailsService.loadUserByUsername(token.getSubject());
+          tokenCache.put(jwt, loaded, token.getExpiration());
+          userDetails = loaded;
+          outcome = "loaded";
+        }
+      }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -47,8 +77,11 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         SecurityContextHolder.getContext().setAuthentication(authentication);
       }
     } catch (Exception e) {
+      outcome = "error";
       logger.error("Cannot set user authentication: {}", e);
     }
+    sample.stop(meterRegistry.timer("yoga.auth.filter", "outcome", outcome));
+    event.commit(outcome);
 
     filterChain.doFilter(request, response);
   }
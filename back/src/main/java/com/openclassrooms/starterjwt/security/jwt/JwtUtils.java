@@ -11,6 +11,9 @@ import org.springframework.stereotype.Component;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
+
+import io.micrometer.core.annotation.Timed;
 
 @Component
 public class JwtUtils {
@@ -22,6 +25,11 @@ public class JwtUtils {
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  // Decoded once on first use, then shared by every request thread.
+  private volatile byte[] signingKey;
+
+  private volatile JwtParser jwtParser;
+
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
@@ -30,30 +38,56 @@ public class JwtUtils {
         .setSubject((userPrincipal.getUsername()))
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .signWith(SignatureAlgorithm.HS512, signingKey())
         .compact();
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    return parser().parseClaimsJws(token).getBody().getSubject();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return parseAndValidate(authToken).isValid();
+  }
+
+  @Timed("yoga.jwt.validate")
+  public JwtValidationResult parseAndValidate(String token) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
-    } catch (SignatureException e) {
-      logger.error("Invalid JWT signature: {}", e.getMessage());
-    } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
+      Claims claims = parser().parseClaimsJws(token).getBody();
+      return JwtValidationResult.valid(claims.getSubject(), claims.getIssuedAt(), claims.getExpiration());
     } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
+      logger.debug("JWT token is expired: {}", e.getMessage());
+      return JwtValidationResult.failure(JwtValidationResult.Status.EXPIRED);
+    } catch (SignatureException e) {
+      logger.warn("Invalid JWT signature: {}", e.getMessage());
+      return JwtValidationResult.failure(JwtValidationResult.Status.INVALID_SIGNATURE);
     } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
+      logger.warn("JWT token is unsupported: {}", e.getMessage());
+      return JwtValidationResult.failure(JwtValidationResult.Status.UNSUPPORTED);
     } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
+      logger.debug("JWT claims string is empty: {}", e.getMessage());
+      return JwtValidationResult.failure(JwtValidationResult.Status.EMPTY);
+    } catch (JwtException e) {
+      logger.warn("Invalid JWT token: {}", e.getMessage());
+      return JwtValidationResult.failure(JwtValidationResult.Status.MALFORMED);
+    }
+  }
+
+  private byte[] signingKey() {
+    byte[] key = signingKey;
+    if (key == null) {
+      key = TextCodec.BASE64.decode(jwtSecret);
+      signingKey = key;
     }
+    return key;
+  }
 
-    return false;
+  private JwtParser parser() {
+    JwtParser parser = jwtParser;
+    if (parser == null) {
+      parser = Jwts.parser().setSigningKey(signingKey());
+      jwtParser = parser;
+    }
+    return parser;
   }
 }
@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Date;
+
+import lombok.Getter;
+
+@Getter
+public class JwtValidationResult {
+  public enum Status {
+    VALID,
+    EXPIRED,
+    INVALID_SIGNATURE,
+    MALFORMED,
+    UNSUPPORTED,
+    EMPTY
+  }
+
+  private final Status status;
+
+  private final String subject;
+
+  private final Date issuedAt;
+
+  private final Date expiration;
+
+  private JwtValidationResult(Status status, String subject, Date issuedAt, Date expiration) {
+    this.status = status;
+    this.subject = subject;
+    this.issuedAt = issuedAt;
+    this.expiration = expiration;
+  }
+
+  public static JwtValidationResult valid(String subject, Date issuedAt, Date expiration) {
+    return new JwtValidationResult(Status.VALID, subject, issuedAt, expiration);
+  }
+
+  public static JwtValidationResult failure(Status status) {
+    return new JwtValidationResult(status, null, null, null);
+  }
+
+  public boolean isValid() {
+    return status == Status.VALID;
+  }
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+/**
+ * Bounded LRU cache of already verified JWTs. Entries are keyed by a SHA-256
+ * digest of the token (the raw token is never kept) and expire with the
+ * token's {@code exp} claim, or after {@code oc.app.jwtCacheTtlMs} if that
+ * comes first: the cached principal carries the user's roles, so a change
+ * of the admin flag made outside the application is seen within that delay.
+ */
+@Component
+public class VerifiedTokenCache {
+  private final Map<String, CachedToken> entries;
+
+  private final long ttlMs;
+
+  public VerifiedTokenCache(@Value("${oc.app.jwtCacheMaxEntries:10000}") int maxEntries,
+                            @Value("${oc.app.jwtCacheTtlMs:60000}") long ttlMs) {
+    this.ttlMs = ttlMs;
+    this.entries = new LinkedHashMap<String, CachedToken>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedToken> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  public UserDetailsImpl get(String token) {
+    String key = hash(token);
+
+    synchronized (entries) {
+      CachedToken cached = entries.get(key);
+      if (cached == null) {
+        return null;
+      }
+
+      if (cached.expiresAt <= System.currentTimeMillis()) {
+        entries.remove(key);
+        return null;
+      }
+
+      return cached.userDetails;
+    }
+  }
+
+  public void put(String token, UserDetailsImpl userDetails, Date expiration) {
+    if (expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+      return;
+    }
+
+    String key = hash(token);
+    long expiresAt = Math.min(expiration.getTime(), System.currentTimeMillis() + ttlMs);
+
+    synchronized (entries) {
+      entries.put(key, new CachedToken(userDetails, expiresAt));
+    }
+  }
+
+  public void evictUser(Long userId) {
+    synchronized (entries) {
+      entries.values().removeIf(cached -> Objects.equals(cached.userDetails.getId(), userId));
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  static String hash(String token) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static final class CachedToken {
+    private final UserDetailsImpl userDetails;
+    private final long expiresAt;
+
+    private CachedToken(UserDetailsImpl userDetails, long expiresAt) {
+      this.userDetails = userDetails;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the BCrypt work of logins and sign-ups on a small fixed pool with a
+ * bounded queue, off the servlet threads. When the queue is full the task
+ * is refused at once instead of piling up behind the CPU.
+ *
+ * Deliberately not an {@link java.util.concurrent.Executor} bean, so that it
+ * never replaces the application task executor used by MVC async requests.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+  private final ThreadPoolExecutor executor;
+
+  private final int retryAfterSeconds;
+
+  public PasswordHashingExecutor(
+      @Value("${oc.app.passwordHashThreads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+      @Value("${oc.app.passwordHashQueueCapacity:50}") int queueCapacity,
+      @Value("${oc.app.loginRetryAfterSeconds:1}") int retryAfterSeconds) {
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /**
+   * @throws RejectedExecutionException when every thread is busy and the queue is full
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    return CompletableFuture.supplyAsync(task, this.executor);
+  }
+
+  public int getRetryAfterSeconds() {
+    return this.retryAfterSeconds;
+  }
+
+  @Override
+  public void destroy() {
+    this.executor.shutdown();
+  }
+}
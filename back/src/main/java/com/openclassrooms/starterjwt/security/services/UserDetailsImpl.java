@@ -1,10 +1,11 @@
 package com.openclassrooms.starterjwt.security.services;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -19,6 +20,14 @@ import lombok.Getter;
 public class UserDetailsImpl implements UserDetails {
   private static final long serialVersionUID = 1L;
 
+  public static final String ROLE_USER = "ROLE_USER";
+
+  public static final String ROLE_ADMIN = "ROLE_ADMIN";
+
+  private static final List<GrantedAuthority> USER_AUTHORITIES = AuthorityUtils.createAuthorityList(ROLE_USER);
+
+  private static final List<GrantedAuthority> ADMIN_AUTHORITIES = AuthorityUtils.createAuthorityList(ROLE_USER, ROLE_ADMIN);
+
   private Long id;
 
   private String username;
@@ -32,8 +41,13 @@ public class UserDetailsImpl implements UserDetails {
   @JsonIgnore
   private String password;  
   
-  public Collection<? extends GrantedAuthority> getAuthorities() {        
-      return new HashSet<GrantedAuthority>();
+  /**
+   * Derived from the admin flag loaded with the user, so that
+   * {@code hasRole('ADMIN')} needs no extra query.
+   */
+  @Override
+  public Collection<? extends GrantedAuthority> getAuthorities() {
+    return Boolean.TRUE.equals(admin) ? ADMIN_AUTHORITIES : USER_AUTHORITIES;
   }
 
   @Override
@@ -1,16 +1,18 @@
 package com.openclassrooms.starterjwt.security.services;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.openclassrooms.starterjwt.jfr.UserResolutionEvent;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
   UserRepository userRepository;
 
   UserDetailsServiceImpl(UserRepository userRepository) {
@@ -20,8 +22,13 @@ public class UserDetailsServiceImpl implements UserDetailsService {
   @Override
   @Transactional
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    User user = userRepository.findByEmail(username)
-        .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + username));
+    UserResolutionEvent event = new UserResolutionEvent();
+    event.begin();
+    User user = userRepository.findByEmail(username).orElse(null);
+    event.commit(user != null, user != null && user.isAdmin());
+    if (user == null) {
+      throw new UsernameNotFoundException("User Not Found with email: " + username);
+    }
 
     return UserDetailsImpl
             .builder()
@@ -29,8 +36,30 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             .username(user.getEmail())
             .lastName(user.getLastName())
             .firstName(user.getFirstName())
+            .admin(user.isAdmin())
             .password(user.getPassword())
             .build();
   }
 
+  /**
+   * Called by the authentication provider after a successful login when the
+   * stored hash was made with a lower BCrypt cost than the configured one.
+   */
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    userRepository.updatePassword(user.getUsername(), newPassword);
+
+    UserDetailsImpl details = (UserDetailsImpl) user;
+    return UserDetailsImpl
+            .builder()
+            .id(details.getId())
+            .username(details.getUsername())
+            .lastName(details.getLastName())
+            .firstName(details.getFirstName())
+            .admin(details.getAdmin())
+            .password(newPassword)
+            .build();
+  }
+
 }
@@ -0,0 +1,123 @@
+package com.openclassrooms.starterjwt.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Subset of the iCalendar RRULE syntax, enough for a timetable:
+ * {@code FREQ=DAILY|WEEKLY}, {@code INTERVAL=n} and, for weekly rules,
+ * {@code BYDAY=MO,WE,...}. Example: {@code FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH}.
+ * Occurrences keep the time of day of the first one.
+ */
+public final class RecurrenceRule {
+    private static final Map<String, DayOfWeek> DAYS = Map.of(
+            "MO", DayOfWeek.MONDAY, "TU", DayOfWeek.TUESDAY, "WE", DayOfWeek.WEDNESDAY,
+            "TH", DayOfWeek.THURSDAY, "FR", DayOfWeek.FRIDAY, "SA", DayOfWeek.SATURDAY, "SU", DayOfWeek.SUNDAY);
+
+    private final boolean weekly;
+
+    private final int interval;
+
+    private final SortedSet<DayOfWeek> days;
+
+    private RecurrenceRule(boolean weekly, int interval, SortedSet<DayOfWeek> days) {
+        this.weekly = weekly;
+        this.interval = interval;
+        this.days = days;
+    }
+
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null || rule.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing recurrence rule");
+        }
+
+        String freq = null;
+        int interval = 1;
+        SortedSet<DayOfWeek> days = new TreeSet<>();
+        for (String part : rule.trim().toUpperCase(Locale.ROOT).split(";")) {
+            String[] pair = part.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid recurrence rule part: " + part);
+            }
+            switch (pair[0]) {
+                case "FREQ":
+                    freq = pair[1];
+                    break;
+                case "INTERVAL":
+                    try {
+                        interval = Integer.parseInt(pair[1]);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid recurrence interval: " + pair[1]);
+                    }
+                    break;
+                case "BYDAY":
+                    for (String day : pair[1].split(",")) {
+                        DayOfWeek dayOfWeek = DAYS.get(day);
+                        if (dayOfWeek == null) {
+                            throw new IllegalArgumentException("Invalid recurrence day: " + day);
+                        }
+                        days.add(dayOfWeek);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported recurrence rule part: " + pair[0]);
+            }
+        }
+
+        if (!"DAILY".equals(freq) && !"WEEKLY".equals(freq)) {
+            throw new IllegalArgumentException("Unsupported recurrence frequency: " + freq);
+        }
+        if (interval < 1 || interval > 52) {
+            throw new IllegalArgumentException("Recurrence interval must be between 1 and 52");
+        }
+        if (!days.isEmpty() && !"WEEKLY".equals(freq)) {
+            throw new IllegalArgumentException("BYDAY is only supported with FREQ=WEEKLY");
+        }
+
+        return new RecurrenceRule("WEEKLY".equals(freq), interval, days);
+    }
+
+    /**
+     * Occurrences of a series starting at {@code start} that fall in
+     * [{@code from}, {@code to}), in chronological order.
+     */
+    public List<LocalDateTime> between(LocalDateTime start, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime lower = from.isAfter(start) ? from : start;
+        List<LocalDateTime> occurrences = new ArrayList<>();
+        if (!lower.isBefore(to)) {
+            return occurrences;
+        }
+
+        if (this.weekly) {
+            SortedSet<DayOfWeek> weekDays = this.days.isEmpty()
+                    ? new TreeSet<>(Collections.singleton(start.getDayOfWeek()))
+                    : this.days;
+            LocalDate firstWeek = start.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            long skipped = ChronoUnit.WEEKS.between(firstWeek, lower.toLocalDate());
+            LocalDate week = firstWeek.plusWeeks(skipped - skipped % this.interval);
+            for (; week.atStartOfDay().isBefore(to); week = week.plusWeeks(this.interval)) {
+                for (DayOfWeek day : weekDays) {
+                    add(occurrences, week.plusDays(day.ordinal()).atTime(start.toLocalTime()), lower, to);
+                }
+            }
+        } else {
+            long skipped = ChronoUnit.DAYS.between(start.toLocalDate(), lower.toLocalDate());
+            LocalDateTime occurrence = start.plusDays(skipped - skipped % this.interval);
+            for (; occurrence.isBefore(to); occurrence = occurrence.plusDays(this.interval)) {
+                add(occurrences, occurrence, lower, to);
+            }
+        }
+
+        return occurrences;
+    }
+
+    private static void add(List<LocalDateTime> occurrences, LocalDateTime occurrence, LocalDateTime lower, LocalDateTime to) {
+        if (!occurrence.isBefore(lower) && occurrence.isBefore(to)) {
+            occurrences.add(occurrence);
+        }
+    }
+}
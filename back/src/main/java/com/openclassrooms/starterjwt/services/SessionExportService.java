@@ -0,0 +1,129 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+/**
+ * Writes every session with its participants as a JSON array. Rows are read
+ * from a forward-only cursor ordered by session id and each session is
+ * written as soon as its last row has been read, so memory use does not
+ * grow with the number of sessions.
+ */
+@Service
+public class SessionExportService {
+    static final String EXPORT_QUERY = "SELECT s.id, s.name, s.date, s.description, s.teacher_id, s.capacity, s.booked,"
+            + " s.series_id, s.version, s.created_at, s.updated_at, p.user_id"
+            + " FROM SESSIONS s LEFT JOIN PARTICIPATE p ON p.session_id = s.id"
+            + " ORDER BY s.id, p.user_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final int fetchSize;
+
+    public SessionExportService(JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${oc.app.exportFetchSize:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    public void export(OutputStream out) throws IOException {
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            SessionWriter writer = new SessionWriter(generator);
+            try {
+                this.jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            EXPORT_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(this.fetchSize);
+                    return statement;
+                }, writer);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.writeCurrent();
+
+            generator.writeEndArray();
+        }
+    }
+
+    private static final class SessionWriter implements RowCallbackHandler {
+        private final JsonGenerator generator;
+
+        private SessionDto current;
+
+        private SessionWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (this.current == null || this.current.getId() != id) {
+                writeCurrent();
+                this.current = toDto(rs, id);
+            }
+
+            long userId = rs.getLong("user_id");
+            if (!rs.wasNull()) {
+                this.current.getUsers().add(userId);
+            }
+        }
+
+        private void writeCurrent() {
+            if (this.current == null) {
+                return;
+            }
+            try {
+                this.generator.writeObject(this.current);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.current = null;
+        }
+
+        private static SessionDto toDto(ResultSet rs, long id) throws SQLException {
+            SessionDto dto = new SessionDto();
+            dto.setId(id);
+            dto.setName(rs.getString("name"));
+            dto.setDate(rs.getTimestamp("date"));
+            dto.setDescription(rs.getString("description"));
+            long teacherId = rs.getLong("teacher_id");
+            dto.setTeacher_id(rs.wasNull() ? null : teacherId);
+            int capacity = rs.getInt("capacity");
+            dto.setCapacity(rs.wasNull() ? null : capacity);
+            dto.setBooked(rs.getInt("booked"));
+            long seriesId = rs.getLong("series_id");
+            dto.setSeriesId(rs.wasNull() ? null : seriesId);
+            dto.setVersion(rs.getLong("version"));
+            dto.setUsers(new ArrayList<>());
+            dto.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+            dto.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+            return dto;
+        }
+
+        private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+            return timestamp != null ? timestamp.toLocalDateTime() : null;
+        }
+    }
+}
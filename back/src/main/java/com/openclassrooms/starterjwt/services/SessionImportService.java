@@ -0,0 +1,378 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.ImportReport;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports a timetable in two passes. The upload is read and validated row
+ * by row; teachers and users referenced by the valid rows are then loaded
+ * with one query each, and the sessions are saved in chunks, one
+ * transaction per chunk. Rows that fail are reported, the others are kept,
+ * including those of a chunk that failed as a whole.
+ */
+@Service
+public class SessionImportService {
+    public static final int MAX_ROWS = 10000;
+
+    static final List<String> CSV_COLUMNS = Arrays.asList("name", "date", "description", "teacher_id", "capacity", "users");
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final TeacherRepository teacherRepository;
+
+    private final UserRepository userRepository;
+
+    private final SessionService sessionService;
+
+    private final EntityManager entityManager;
+
+    private final int chunkSize;
+
+    public SessionImportService(ObjectMapper objectMapper,
+                                Validator validator,
+                                TeacherRepository teacherRepository,
+                                UserRepository userRepository,
+                                SessionService sessionService,
+                                EntityManager entityManager,
+                                @Value("${oc.app.importChunkSize:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.teacherRepository = teacherRepository;
+        this.userRepository = userRepository;
+        this.sessionService = sessionService;
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportReport importJson(InputStream in) throws IOException {
+        ImportReport report = new ImportReport();
+        List<ImportRow> rows = new ArrayList<>();
+
+        try (JsonParser parser = this.objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of sessions");
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Unexpected end of JSON array");
+                }
+                int rowNumber = nextRow(report);
+
+                // Only the current element is parsed as a tree; the valid rows
+                // are kept, up to MAX_ROWS, until the chunked inserts
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    accept(rows, report, rowNumber, this.objectMapper.treeToValue(node, SessionDto.class));
+                } catch (JsonProcessingException e) {
+                    report.addError(rowNumber, "Invalid session: " + e.getOriginalMessage());
+                }
+            }
+        }
+
+        return persist(rows, report);
+    }
+
+    public ImportReport importCsv(InputStream in) throws IOException {
+        ImportReport report = new ImportReport();
+        List<ImportRow> rows = new ArrayList<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> header = readRecord(reader);
+        if (header == null) {
+            throw new IllegalArgumentException("Missing CSV header");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : CSV_COLUMNS.subList(0, 4)) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing CSV column: " + required);
+            }
+        }
+
+        List<String> record;
+        while ((record = readRecord(reader)) != null) {
+            if (record.size() == 1 && record.get(0).trim().isEmpty()) {
+                continue;
+            }
+            int rowNumber = nextRow(report);
+
+            try {
+                accept(rows, report, rowNumber, toDto(record, columns));
+            } catch (IllegalArgumentException e) {
+                report.addError(rowNumber, e.getMessage());
+            }
+        }
+
+        return persist(rows, report);
+    }
+
+    private static int nextRow(ImportReport report) {
+        if (report.getReceived() >= MAX_ROWS) {
+            throw new IllegalArgumentException("Too many rows, the limit is " + MAX_ROWS);
+        }
+        report.rowReceived();
+        return report.getReceived();
+    }
+
+    private void accept(List<ImportRow> rows, ImportReport report, int rowNumber, SessionDto dto) {
+        if (dto == null) {
+            report.addError(rowNumber, "Empty row");
+            return;
+        }
+
+        Set<ConstraintViolation<SessionDto>> violations = this.validator.validate(dto);
+        if (!violations.isEmpty()) {
+            report.addError(rowNumber, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return;
+        }
+
+        List<Long> userIds = dto.getUsers() != null
+                ? dto.getUsers().stream().filter(Objects::nonNull).distinct().collect(Collectors.toList())
+                : new ArrayList<>();
+        if (dto.getCapacity() != null && userIds.size() > dto.getCapacity()) {
+            report.addError(rowNumber, "More participants than capacity " + dto.getCapacity());
+            return;
+        }
+        dto.setUsers(userIds);
+
+        rows.add(new ImportRow(rowNumber, dto));
+    }
+
+    private ImportReport persist(List<ImportRow> rows, ImportReport report) {
+        Set<Long> teacherIds = rows.stream().map(row -> row.dto.getTeacher_id()).collect(Collectors.toSet());
+        Map<Long, Teacher> teachers = teacherIds.isEmpty()
+                ? Collections.emptyMap()
+                : this.teacherRepository.findAllById(teacherIds).stream()
+                        .collect(Collectors.toMap(Teacher::getId, Function.identity()));
+
+        Set<Long> userIds = rows.stream().flatMap(row -> row.dto.getUsers().stream()).collect(Collectors.toSet());
+        Map<Long, User> users = userIds.isEmpty()
+                ? Collections.emptyMap()
+                : this.userRepository.findAllById(userIds).stream()
+                        .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<ImportRow> resolved = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            List<Long> unknownUsers = row.dto.getUsers().stream()
+                    .filter(id -> !users.containsKey(id))
+                    .collect(Collectors.toList());
+            if (!teachers.containsKey(row.dto.getTeacher_id())) {
+                report.addError(row.number, "Unknown teacher id: " + row.dto.getTeacher_id());
+            } else if (!unknownUsers.isEmpty()) {
+                report.addError(row.number, "Unknown user ids: " + unknownUsers);
+            } else {
+                resolved.add(row);
+            }
+        }
+
+        for (int from = 0; from < resolved.size(); from += this.chunkSize) {
+            save(resolved.subList(from, Math.min(from + this.chunkSize, resolved.size())), teachers, users, report);
+        }
+
+        report.sortErrors();
+        return report;
+    }
+
+    /**
+     * Saves the rows in one transaction. When it fails, each half is saved
+     * again on its own, down to single rows, so that only the rows that
+     * really fail are reported and the others of the chunk are kept.
+     */
+    private void save(List<ImportRow> chunk, Map<Long, Teacher> teachers, Map<Long, User> users, ImportReport report) {
+        // Entities are built for each attempt: a rolled back attempt leaves ids on them
+        List<Session> sessions = chunk.stream()
+                .map(row -> toEntity(row.dto, teachers, users))
+                .collect(Collectors.toList());
+        RuntimeException failure = null;
+        try {
+            // createAll runs in its own transaction, one per chunk
+            this.sessionService.createAll(sessions);
+            report.rowsImported(chunk.size());
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            // Keeps the persistence context from growing with the upload
+            this.entityManager.clear();
+        }
+
+        if (failure == null) {
+            return;
+        }
+        if (chunk.size() == 1) {
+            report.addError(chunk.get(0).number, "Not saved: " + NestedExceptionUtils.getMostSpecificCause(failure).getMessage());
+            return;
+        }
+        int half = chunk.size() / 2;
+        save(chunk.subList(0, half), teachers, users, report);
+        save(chunk.subList(half, chunk.size()), teachers, users, report);
+    }
+
+    private static Session toEntity(SessionDto dto, Map<Long, Teacher> teachers, Map<Long, User> users) {
+        return new Session()
+                .setName(dto.getName())
+                .setDate(dto.getDate())
+                .setDescription(dto.getDescription())
+                .setTeacher(teachers.get(dto.getTeacher_id()))
+                .setCapacity(dto.getCapacity())
+                .setUsers(dto.getUsers().stream().map(users::get).collect(Collectors.toList()));
+    }
+
+    private static SessionDto toDto(List<String> record, Map<String, Integer> columns) {
+        SessionDto dto = new SessionDto();
+        dto.setName(emptyToNull(field(record, columns, "name")));
+        dto.setDescription(field(record, columns, "description"));
+
+        String date = emptyToNull(field(record, columns, "date"));
+        dto.setDate(date != null ? parseDate(date) : null);
+
+        String teacherId = emptyToNull(field(record, columns, "teacher_id"));
+        dto.setTeacher_id(teacherId != null ? parseLong("teacher_id", teacherId) : null);
+
+        String capacity = emptyToNull(field(record, columns, "capacity"));
+        dto.setCapacity(capacity != null ? (int) parseLong("capacity", capacity) : null);
+
+        // Participants are separated by ';' or spaces inside the column
+        String userIds = emptyToNull(field(record, columns, "users"));
+        List<Long> users = new ArrayList<>();
+        if (userIds != null) {
+            for (String userId : userIds.split("[;\\s]+")) {
+                if (!userId.isEmpty()) {
+                    users.add(parseLong("users", userId));
+                }
+            }
+        }
+        dto.setUsers(users);
+
+        return dto;
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < record.size() ? record.get(index) : null;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static long parseLong(String column, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    static Date parseDate(String value) {
+        try {
+            return Date.from(OffsetDateTime.parse(value).toInstant());
+        } catch (DateTimeParseException ignored) {
+            // not an offset date-time, try the local forms
+        }
+        try {
+            return Date.from(LocalDateTime.parse(value).atZone(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException ignored) {
+            // not a local date-time, try a plain date
+        }
+        try {
+            return Date.from(LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+
+    /**
+     * Reads one RFC 4180 record: comma separated, fields optionally quoted,
+     * "" inside quotes for a literal quote. Returns null at end of input.
+     */
+    static List<String> readRecord(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class ImportRow {
+        private final int number;
+
+        private final SessionDto dto;
+
+        private ImportRow(int number, SessionDto dto) {
+            this.number = number;
+            this.dto = dto;
+        }
+    }
+}
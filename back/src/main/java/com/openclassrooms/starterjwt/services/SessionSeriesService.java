@@ -0,0 +1,197 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Series are expanded lazily: only the occurrences of the next
+ * {@code oc.app.seriesWindowDays} days exist as sessions, and a scheduled
+ * job moves the window forward. Edits of a series are applied to its
+ * future occurrences with a few set-based statements.
+ */
+@Service
+public class SessionSeriesService {
+    private static final Date BEGINNING_OF_TIME = new Date(0);
+
+    private final SessionSeriesRepository sessionSeriesRepository;
+
+    private final SessionRepository sessionRepository;
+
+    private final SessionService sessionService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int windowDays;
+
+    public SessionSeriesService(SessionSeriesRepository sessionSeriesRepository,
+                                SessionRepository sessionRepository,
+                                SessionService sessionService,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${oc.app.seriesWindowDays:56}") int windowDays) {
+        this.sessionSeriesRepository = sessionSeriesRepository;
+        this.sessionRepository = sessionRepository;
+        this.sessionService = sessionService;
+        this.transactionTemplate = transactionTemplate;
+        this.windowDays = windowDays;
+    }
+
+    public List<SessionSeries> findAll() {
+        return this.sessionSeriesRepository.findAll();
+    }
+
+    public SessionSeries getById(Long id) {
+        return this.sessionSeriesRepository.findById(id).orElse(null);
+    }
+
+    @Transactional
+    public SessionSeries create(SessionSeries series) {
+        RecurrenceRule.parse(series.getRecurrence());
+
+        // Occurrences already in the past are not created
+        series.setGeneratedUntil(later(series.getStartsAt(), new Date()));
+        // Flushed first: occurrences only refer to the series by id
+        SessionSeries saved = this.sessionSeriesRepository.saveAndFlush(series);
+        expand(saved, horizon());
+        return saved;
+    }
+
+    /**
+     * Future occurrences follow the new name, description, teacher and
+     * capacity. When the schedule itself changes, the future occurrences
+     * nobody booked are replaced and the booked ones become one-off sessions.
+     * Moving only the end of the series adds the occurrences after the old
+     * end, or removes the ones after the new end in the same way.
+     */
+    @Transactional
+    public SessionSeries update(Long id, SessionSeries changes) {
+        RecurrenceRule.parse(changes.getRecurrence());
+        SessionSeries series = this.sessionSeriesRepository.lockById(id).orElseThrow(NotFoundException::new);
+
+        Date now = new Date();
+        boolean rescheduled = !Objects.equals(series.getRecurrence(), changes.getRecurrence())
+                || !sameInstant(series.getStartsAt(), changes.getStartsAt());
+        boolean shortened = changes.getEndsAt() != null
+                && (series.getEndsAt() == null || changes.getEndsAt().before(series.getEndsAt()));
+
+        series.setName(changes.getName())
+                .setDescription(changes.getDescription())
+                .setTeacher(changes.getTeacher())
+                .setCapacity(changes.getCapacity())
+                .setRecurrence(changes.getRecurrence())
+                .setStartsAt(changes.getStartsAt())
+                .setEndsAt(changes.getEndsAt());
+
+        // Occurrences that leave the series are cut after the edit, so that
+        // the booked ones keep the new name, description and teacher
+        Date cut = rescheduled ? now : shortened ? later(series.getEndsAt(), now) : null;
+        if (cut != null) {
+            this.sessionRepository.deleteUnbookedSeriesOccurrences(id, cut);
+        }
+        if (series.getCapacity() != null) {
+            this.sessionRepository.updateSeriesOccurrences(id, now, series.getName(), series.getDescription(),
+                    series.getTeacher().getId(), series.getCapacity());
+        } else {
+            this.sessionRepository.updateUnlimitedSeriesOccurrences(id, now, series.getName(), series.getDescription(),
+                    series.getTeacher().getId());
+        }
+        if (cut != null) {
+            this.sessionRepository.detachSeriesOccurrences(id, cut);
+            series.setGeneratedUntil(rescheduled ? later(series.getStartsAt(), now) : earlier(series.getGeneratedUntil(), cut));
+        }
+
+        expand(series, horizon());
+        return series;
+    }
+
+    /**
+     * Removes the series and its future occurrences nobody booked. Past and
+     * booked occurrences are kept as one-off sessions.
+     */
+    @Transactional
+    public void delete(Long id) {
+        SessionSeries series = this.sessionSeriesRepository.lockById(id).orElseThrow(NotFoundException::new);
+
+        this.sessionRepository.deleteUnbookedSeriesOccurrences(id, new Date());
+        this.sessionRepository.detachSeriesOccurrences(id, BEGINNING_OF_TIME);
+        this.sessionSeriesRepository.delete(series);
+    }
+
+    /**
+     * Moves the window of every series forward, one transaction per series.
+     */
+    @Scheduled(fixedDelayString = "${oc.app.seriesExpandDelayMs:3600000}",
+            initialDelayString = "${oc.app.seriesExpandDelayMs:3600000}")
+    public void expandAll() {
+        Date horizon = horizon();
+        for (Long id : this.sessionSeriesRepository.findIdsToExpand(horizon)) {
+            this.transactionTemplate.executeWithoutResult(status ->
+                    this.sessionSeriesRepository.lockById(id).ifPresent(series -> expand(series, horizon)));
+        }
+    }
+
+    private void expand(SessionSeries series, Date horizon) {
+        Date until = series.getEndsAt() != null && series.getEndsAt().before(horizon) ? series.getEndsAt() : horizon;
+        if (!series.getGeneratedUntil().before(until)) {
+            return;
+        }
+
+        List<Session> occurrences = RecurrenceRule.parse(series.getRecurrence())
+                .between(toLocalDateTime(series.getStartsAt()), toLocalDateTime(series.getGeneratedUntil()), toLocalDateTime(until))
+                .stream()
+                .map(date -> new Session()
+                        .setName(series.getName())
+                        .setDescription(series.getDescription())
+                        .setDate(toDate(date))
+                        .setTeacher(series.getTeacher())
+                        .setCapacity(series.getCapacity())
+                        .setSeriesId(series.getId())
+                        .setUsers(new ArrayList<>()))
+                .collect(Collectors.toList());
+
+        if (!occurrences.isEmpty()) {
+            this.sessionService.createAll(occurrences);
+        }
+        series.setGeneratedUntil(until);
+    }
+
+    private Date horizon() {
+        return Date.from(new Date().toInstant().plus(this.windowDays, ChronoUnit.DAYS));
+    }
+
+    private static Date later(Date a, Date b) {
+        return a.after(b) ? a : b;
+    }
+
+    private static Date earlier(Date a, Date b) {
+        return a.before(b) ? a : b;
+    }
+
+    private static boolean sameInstant(Date a, Date b) {
+        return a == null ? b == null : b != null && a.getTime() == b.getTime();
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    private static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
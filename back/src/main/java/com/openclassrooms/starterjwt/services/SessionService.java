@@ -1,78 +1,315 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
+import com.openclassrooms.starterjwt.exception.SessionFullException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.payload.request.SessionPatchRequest;
+import com.openclassrooms.starterjwt.payload.response.ParticipationResult;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeats;
+import com.openclassrooms.starterjwt.repository.SessionView;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.Watermark;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class SessionService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final Date END_OF_TIME = new Date(253402300799000L); // 9999-12-31T23:59:59Z
+
     private final SessionRepository sessionRepository;
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final TeacherService teacherService;
+
+    private final Validator validator;
+
+    public SessionService(SessionRepository sessionRepository,
+                          UserRepository userRepository,
+                          TeacherService teacherService,
+                          Validator validator) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.teacherService = teacherService;
+        this.validator = validator;
     }
 
     public Session create(Session session) {
+        countSeats(session);
         return this.sessionRepository.save(session);
     }
 
+    /**
+     * Inserts the sessions in one transaction. Ids come from the pooled
+     * generator, so the inserts are sent as JDBC batches.
+     */
+    @Transactional
+    public List<Session> createAll(List<Session> sessions) {
+        sessions.forEach(SessionService::countSeats);
+        return this.sessionRepository.saveAll(sessions);
+    }
+
     public void delete(Long id) {
         this.sessionRepository.deleteById(id);
     }
 
-    public List<Session> findAll() {
-        return this.sessionRepository.findAll();
+    public Slice<SessionView> findPage(Date from, Date to, Long teacherId, SessionCursor cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException();
+        }
+
+        Date afterDate = from != null ? from : new Date(0);
+        Long afterId = 0L;
+        if (cursor != null && !cursor.getDate().before(afterDate)) {
+            afterDate = cursor.getDate();
+            afterId = cursor.getId();
+        }
+        Date before = to != null ? to : END_OF_TIME;
+
+        // one row more than the page tells whether there is a next one
+        List<SessionView> rows = teacherId != null
+                ? this.sessionRepository.findViewPageByTeacher(teacherId, afterDate, afterId, before, size + 1)
+                : this.sessionRepository.findViewPage(afterDate, afterId, before, size + 1);
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.of(0, size), hasNext);
     }
 
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
-    public Session update(Long id, Session session) {
-        session.setId(id);
-        return this.sessionRepository.save(session);
+    public SessionView getViewById(Long id) {
+        return this.sessionRepository.findViewById(id).orElse(null);
+    }
+
+    public Watermark getWatermark() {
+        return this.sessionRepository.findWatermark();
+    }
+
+    public Long getVersion(Long id) {
+        return this.sessionRepository.findVersionById(id).orElse(null);
+    }
+
+    /**
+     * Replaces the session with the given state. The stored row is loaded and
+     * its version checked against {@code expectedVersion} (no check when
+     * null); a write that happened in between, a booking included, fails the
+     * version check of the UPDATE instead of being overwritten.
+     */
+    @Transactional
+    public Session update(Long id, Session session, Long expectedVersion) {
+        Session existing = this.sessionRepository.findById(id).orElseThrow(NotFoundException::new);
+        checkVersion(existing, expectedVersion);
+
+        existing.setName(session.getName())
+                .setDate(session.getDate())
+                .setDescription(session.getDescription())
+                .setTeacher(session.getTeacher())
+                .setCapacity(session.getCapacity())
+                .setUsers(session.getUsers() != null ? session.getUsers() : new ArrayList<>());
+        countSeats(existing);
+
+        // flushed here so that a version conflict surfaces before the response is built
+        return this.sessionRepository.saveAndFlush(existing);
+    }
+
+    /**
+     * Applies a merge patch to the scalar columns. The participants are never
+     * loaded, and only the columns that changed are written. The session row
+     * is locked first so that a lower capacity is checked against a stable
+     * seat count.
+     */
+    @Transactional
+    public Session patch(Long id, SessionPatchRequest patch, Long expectedVersion) {
+        if (!patch.getUnsupportedFields().isEmpty()) {
+            throw new IllegalArgumentException("Cannot patch " + String.join(", ", patch.getUnsupportedFields()));
+        }
+
+        SessionSeats seats = this.sessionRepository.lockSeats(id).orElseThrow(NotFoundException::new);
+        Session session = this.sessionRepository.findById(id).orElseThrow(NotFoundException::new);
+        checkVersion(session, expectedVersion);
+
+        if (patch.has("name")) {
+            session.setName(patch.getName());
+        }
+        if (patch.has("date")) {
+            session.setDate(patch.getDate());
+        }
+        if (patch.has("description")) {
+            session.setDescription(patch.getDescription());
+        }
+        if (patch.has("teacher_id")) {
+            Teacher teacher = patch.getTeacher_id() != null ? this.teacherService.findById(patch.getTeacher_id()) : null;
+            if (teacher == null) {
+                throw new IllegalArgumentException("Unknown teacher id: " + patch.getTeacher_id());
+            }
+            session.setTeacher(teacher);
+        }
+        if (patch.has("capacity")) {
+            if (patch.getCapacity() != null && patch.getCapacity() < seats.getBooked()) {
+                throw new SessionFullException();
+            }
+            session.setCapacity(patch.getCapacity());
+        }
+
+        Set<ConstraintViolation<Session>> violations = this.validator.validate(session);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+
+        return session;
     }
 
+    @Timed("yoga.session.participate")
+    @Transactional
     public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+        if (!this.sessionRepository.existsById(id) || !this.userRepository.existsById(userId)) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
-            throw new BadRequestException();
+        if (this.sessionRepository.reserveSeat(id) == 0) {
+            throw new SessionFullException();
         }
 
-        session.getUsers().add(user);
+        int inserted;
+        try {
+            inserted = this.sessionRepository.addParticipant(id, userId);
+        } catch (DataIntegrityViolationException e) {
+            // concurrent booking of the same user, rejected by the (session_id, user_id) unique key
+            throw new BadRequestException();
+        }
 
-        this.sessionRepository.save(session);
+        // the reserved seat is given back by the rollback
+        if (inserted == 0) {
+            throw new BadRequestException();
+        }
     }
 
+    @Timed("yoga.session.leave")
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+        if (!this.sessionRepository.existsById(id)) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
+        if (this.sessionRepository.removeParticipant(id, userId) == 0) {
             throw new BadRequestException();
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        this.sessionRepository.releaseSeat(id);
+    }
+
+    /**
+     * Enrols a group of users in one transaction: the ids are classified with
+     * two queries, then every newcomer is written by a single batched insert.
+     * When the session fills up, the remaining users are reported as
+     * {@link ParticipationResult.Status#SESSION_FULL} in request order.
+     */
+    @Transactional
+    public List<ParticipationResult> addParticipants(Long id, List<Long> userIds) {
+        SessionSeats seats = this.sessionRepository.lockSeats(id).orElseThrow(NotFoundException::new);
+
+        List<Long> ids = distinctIds(userIds);
+        Set<Long> knownIds = new HashSet<>(this.userRepository.findExistingIds(ids));
+        Set<Long> presentIds = new HashSet<>(this.sessionRepository.findParticipantIds(id, ids));
+        int freeSeats = seats.getCapacity() != null ? seats.getCapacity() - seats.getBooked() : Integer.MAX_VALUE;
+
+        List<ParticipationResult> results = new ArrayList<>(ids.size());
+        List<Long> added = new ArrayList<>();
+        for (Long userId : ids) {
+            ParticipationResult.Status status;
+            if (!knownIds.contains(userId)) {
+                status = ParticipationResult.Status.UNKNOWN_USER;
+            } else if (presentIds.contains(userId)) {
+                status = ParticipationResult.Status.ALREADY_PRESENT;
+            } else if (added.size() >= freeSeats) {
+                status = ParticipationResult.Status.SESSION_FULL;
+            } else {
+                added.add(userId);
+                status = ParticipationResult.Status.ADDED;
+            }
+            results.add(new ParticipationResult(userId, status));
+        }
+
+        if (!added.isEmpty()) {
+            this.sessionRepository.insertParticipants(id, added);
+            this.sessionRepository.adjustBooked(id, added.size());
+        }
 
-        this.sessionRepository.save(session);
+        return results;
+    }
+
+    @Transactional
+    public List<ParticipationResult> removeParticipants(Long id, List<Long> userIds) {
+        this.sessionRepository.lockSeats(id).orElseThrow(NotFoundException::new);
+
+        List<Long> ids = distinctIds(userIds);
+        Set<Long> presentIds = new HashSet<>(this.sessionRepository.findParticipantIds(id, ids));
+        List<Long> absentIds = ids.stream().filter(userId -> !presentIds.contains(userId)).collect(Collectors.toList());
+        Set<Long> knownIds = absentIds.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(this.userRepository.findExistingIds(absentIds));
+
+        List<ParticipationResult> results = new ArrayList<>(ids.size());
+        List<Long> removed = new ArrayList<>();
+        for (Long userId : ids) {
+            ParticipationResult.Status status;
+            if (presentIds.contains(userId)) {
+                removed.add(userId);
+                status = ParticipationResult.Status.REMOVED;
+            } else if (knownIds.contains(userId)) {
+                status = ParticipationResult.Status.NOT_PRESENT;
+            } else {
+                status = ParticipationResult.Status.UNKNOWN_USER;
+            }
+            results.add(new ParticipationResult(userId, status));
+        }
+
+        if (!removed.isEmpty()) {
+            this.sessionRepository.deleteParticipants(id, removed);
+            this.sessionRepository.adjustBooked(id, -removed.size());
+        }
+
+        return results;
+    }
+
+    private static void checkVersion(Session session, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(session.getVersion())) {
+            throw new PreconditionFailedException();
+        }
+    }
+
+    private static List<Long> distinctIds(List<Long> userIds) {
+        return userIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+    }
+
+    private static void countSeats(Session session) {
+        int booked = session.getUsers() != null ? session.getUsers().size() : 0;
+        if (session.getCapacity() != null && booked > session.getCapacity()) {
+            throw new SessionFullException();
+        }
+        session.setBooked(booked);
     }
 }
@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.config.SlowQueryLog;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.payload.response.SlowQuery;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class SlowQueryService {
+    private final SlowQueryLog slowQueryLog;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SlowQueryService(SlowQueryLog slowQueryLog, JdbcTemplate jdbcTemplate) {
+        this.slowQueryLog = slowQueryLog;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<SlowQuery> findAll() {
+        return this.slowQueryLog.findAll();
+    }
+
+    public void clear() {
+        this.slowQueryLog.clear();
+    }
+
+    /**
+     * Runs EXPLAIN on a recorded SELECT with its original bind values.
+     * Writes and statements with redacted values are not explained.
+     */
+    public List<Map<String, Object>> explain(long id) {
+        SlowQuery query = this.slowQueryLog.findById(id).orElseThrow(NotFoundException::new);
+        if (!query.isExplainable()) {
+            throw new IllegalArgumentException("Only SELECT statements can be explained");
+        }
+
+        return this.jdbcTemplate.queryForList("EXPLAIN " + query.getSql(), query.getExplainParameters().toArray());
+    }
+}
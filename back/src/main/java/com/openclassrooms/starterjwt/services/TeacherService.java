@@ -1,7 +1,9 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.cache.CacheNames;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,10 +16,12 @@ public class TeacherService {
         this.teacherRepository = teacherRepository;
     }
 
+    @Cacheable(CacheNames.TEACHERS)
     public List<Teacher> findAll() {
         return this.teacherRepository.findAll();
     }
 
+    @Cacheable(cacheNames = CacheNames.TEACHER, unless = "#result == null")
     public Teacher findById(Long id) {
         return this.teacherRepository.findById(id).orElse(null);
     }
@@ -2,21 +2,33 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final VerifiedTokenCache tokenCache;
+
+    public UserService(UserRepository userRepository, VerifiedTokenCache tokenCache) {
         this.userRepository = userRepository;
+        this.tokenCache = tokenCache;
     }
 
     public void delete(Long id) {
         this.userRepository.deleteById(id);
+        this.tokenCache.evictUser(id);
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    public List<User> findAllById(Collection<Long> ids) {
+        return this.userRepository.findAllById(ids);
+    }
 }
@@ -0,0 +1,36 @@
+package db.migration;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Runs before V3 adds the unique index on USERS.email. The old schema
+ * allowed duplicate emails, and which account to keep is not ours to
+ * decide: the migration stops with the list of duplicated emails so that
+ * the accounts can be merged first.
+ */
+public class V2_1__check_duplicate_user_emails extends BaseJavaMigration {
+
+  @Override
+  public void migrate(Context context) throws Exception {
+    List<String> duplicates = new ArrayList<>();
+    try (Statement statement = context.getConnection().createStatement();
+         ResultSet rows = statement.executeQuery("SELECT `email`, COUNT(*) FROM `USERS` WHERE `email` IS NOT NULL"
+             + " GROUP BY `email` HAVING COUNT(*) > 1 ORDER BY `email`")) {
+      while (rows.next()) {
+        duplicates.add(rows.getString(1) + " (" + rows.getLong(2) + " accounts)");
+      }
+    }
+
+    if (!duplicates.isEmpty()) {
+      throw new FlywayException("Duplicate emails in USERS, merge these accounts before migrating: "
+          + String.join(", ", duplicates));
+    }
+  }
+}
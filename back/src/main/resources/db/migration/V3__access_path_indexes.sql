@@ -0,0 +1,26 @@
+-- findByEmail runs on every login and every authenticated request;
+-- duplicates were ruled out by V2_1__check_duplicate_user_emails
+CREATE UNIQUE INDEX `ux_users_email` ON `USERS` (`email`);
+
+-- Duplicate or incomplete participations of the old schema are dropped, and
+-- the seat counts recomputed, before the primary key is added
+DROP TABLE IF EXISTS `V3_PARTICIPATE_DISTINCT`;
+CREATE TABLE `V3_PARTICIPATE_DISTINCT` AS
+SELECT DISTINCT `session_id`, `user_id` FROM `PARTICIPATE` WHERE `session_id` IS NOT NULL AND `user_id` IS NOT NULL;
+DELETE FROM `PARTICIPATE`;
+INSERT INTO `PARTICIPATE` (`session_id`, `user_id`) SELECT `session_id`, `user_id` FROM `V3_PARTICIPATE_DISTINCT`;
+DROP TABLE `V3_PARTICIPATE_DISTINCT`;
+
+UPDATE `SESSIONS` s SET `booked` = (SELECT COUNT(*) FROM `PARTICIPATE` p WHERE p.`session_id` = s.`id`);
+
+-- One row per (session, user); also serves the join from SESSIONS
+ALTER TABLE `PARTICIPATE` MODIFY `session_id` INT NOT NULL;
+ALTER TABLE `PARTICIPATE` MODIFY `user_id` INT NOT NULL;
+ALTER TABLE `PARTICIPATE` ADD PRIMARY KEY (`session_id`, `user_id`);
+
+-- Keyset paging of GET /api/session, with and without the teacher filter
+CREATE INDEX `ix_sessions_date_id` ON `SESSIONS` (`date`, `id`);
+CREATE INDEX `ix_sessions_teacher_date_id` ON `SESSIONS` (`teacher_id`, `date`, `id`);
+
+-- MAX(updated_at) of the list ETag watermark
+CREATE INDEX `ix_sessions_updated_at` ON `SESSIONS` (`updated_at`);
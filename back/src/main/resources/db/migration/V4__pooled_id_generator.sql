@@ -0,0 +1,10 @@
+-- Ids are allocated by Hibernate in blocks of 50 (pooled-lo optimizer):
+-- next_val is the first id of the next block to hand out.
+CREATE TABLE `ID_GENERATOR` (
+  `entity` VARCHAR(64) NOT NULL PRIMARY KEY,
+  `next_val` BIGINT NOT NULL
+);
+
+INSERT INTO `ID_GENERATOR` (`entity`, `next_val`) SELECT 'SESSIONS', COALESCE(MAX(`id`), 0) + 1 FROM `SESSIONS`;
+INSERT INTO `ID_GENERATOR` (`entity`, `next_val`) SELECT 'TEACHERS', COALESCE(MAX(`id`), 0) + 1 FROM `TEACHERS`;
+INSERT INTO `ID_GENERATOR` (`entity`, `next_val`) SELECT 'USERS', COALESCE(MAX(`id`), 0) + 1 FROM `USERS`;
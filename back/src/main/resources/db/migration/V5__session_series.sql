@@ -0,0 +1,27 @@
+CREATE TABLE `SESSION_SERIES` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50) NOT NULL,
+  `description` VARCHAR(2500) NOT NULL,
+  `teacher_id` INT NOT NULL,
+  `capacity` INT,
+  `recurrence` VARCHAR(100) NOT NULL,
+  `starts_at` TIMESTAMP NOT NULL,
+  `ends_at` TIMESTAMP NULL,
+  `generated_until` TIMESTAMP NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
+);
+
+ALTER TABLE `SESSION_SERIES` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+
+INSERT INTO `ID_GENERATOR` (`entity`, `next_val`) VALUES ('SESSION_SERIES', 1);
+
+ALTER TABLE `SESSIONS` ADD COLUMN `series_id` INT NULL;
+ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`);
+
+-- One occurrence per series and date: a second expansion of the same window
+-- fails instead of duplicating. Also serves the set-based series updates.
+CREATE UNIQUE INDEX `ux_sessions_series_date` ON `SESSIONS` (`series_id`, `date`);
+
+-- Series whose window has to be extended by the scheduler
+CREATE INDEX `ix_session_series_generated_until` ON `SESSION_SERIES` (`generated_until`);
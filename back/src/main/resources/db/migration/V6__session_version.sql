@@ -0,0 +1,3 @@
+-- Optimistic locking of SESSIONS: every write, including the seat and
+-- participant statements, moves the version forward
+ALTER TABLE `SESSIONS` ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,51 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.services.SessionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MetricsConfigTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Test
+    void parseAndValidate_shouldBeTimed() {
+        long before = count("yoga.jwt.validate", "none");
+
+        jwtUtils.parseAndValidate("not-a-jwt");
+
+        assertEquals(before + 1, count("yoga.jwt.validate", "none"));
+    }
+
+    @Test
+    void participate_shouldBeTimed_withExceptionTag_whenItFails() {
+        long before = count("yoga.session.participate", "NotFoundException");
+
+        assertThrows(NotFoundException.class, () -> sessionService.participate(-1L, -1L));
+
+        // le timer enregistre aussi les échecs, étiquetés par exception
+        assertEquals(before + 1, count("yoga.session.participate", "NotFoundException"));
+    }
+
+    private long count(String name, String exception) {
+        Timer timer = meterRegistry.find(name).tag("exception", exception).timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,49 @@
+package com.openclassrooms.starterjwt.config;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Budget de requêtes SQL pour les tests d'intégration sur H2 : les requêtes
+ * sont comptées par thread, et MockMvc exécute la requête HTTP sur le thread
+ * du test.
+ *
+ * <pre>
+ * QueryBudget.reset();
+ * mockMvc.perform(get("/api/session/1")).andExpect(status().isOk());
+ * QueryBudget.assertStatements(2);
+ * </pre>
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static void reset() {
+        QueryCountHolder.clear();
+    }
+
+    public static QueryCount current() {
+        return QueryCountHolder.getGrandTotal();
+    }
+
+    public static void assertStatements(long expected) {
+        QueryCount count = current();
+        assertEquals(expected, count.getTotal(), () -> "SQL statements: " + describe(count));
+    }
+
+    public static void assertSelects(long expected) {
+        QueryCount count = current();
+        assertEquals(expected, count.getSelect(), () -> "SQL statements: " + describe(count));
+    }
+
+    private static String describe(QueryCount count) {
+        return "select=" + count.getSelect()
+                + ", insert=" + count.getInsert()
+                + ", update=" + count.getUpdate()
+                + ", delete=" + count.getDelete()
+                + ", other=" + count.getOther();
+    }
+}
@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryCountFilterTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final QueryCountFilter filter = new QueryCountFilter();
+
+    @Test
+    void shouldWriteStatementCount_beforeTheBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/session"), response, (req, res) -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SESSIONS", Integer.class);
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USERS", Integer.class);
+            res.getWriter().write("[]");
+            // écrit après le début du corps : non compté
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TEACHERS", Integer.class);
+        });
+
+        assertEquals("2", response.getHeader(QueryCountFilter.HEADER));
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    void shouldWriteZero_whenNoStatementAndNoBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("DELETE", "/api/session/1"), response, (req, res) -> {
+        });
+
+        assertEquals("0", response.getHeader(QueryCountFilter.HEADER));
+    }
+
+    @Test
+    void shouldNotCarryCountOverToTheNextRequest() throws Exception {
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SESSIONS", Integer.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/teacher"), response, (req, res) -> {
+        });
+
+        assertEquals("0", response.getHeader(QueryCountFilter.HEADER));
+    }
+}
@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.openclassrooms.starterjwt.payload.response.SlowQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryListenerTest {
+
+    @Test
+    void sensitiveParameters_shouldFindPasswordColumn_inInsert() {
+        Set<Integer> sensitive = SlowQueryListener.sensitiveParameters(
+                "insert into users (admin, created_at, email, first_name, last_name, password, updated_at, id)"
+                        + " values (?, ?, ?, ?, ?, ?, ?, ?)");
+
+        assertEquals(Set.of(6), sensitive);
+    }
+
+    @Test
+    void sensitiveParameters_shouldFindPasswordAssignment_inUpdate() {
+        Set<Integer> sensitive = SlowQueryListener.sensitiveParameters(
+                "update users set password=? where email=?");
+
+        assertEquals(Set.of(1), sensitive);
+    }
+
+    @Test
+    void sensitiveParameters_shouldKeepValues_whenPasswordIsOnlySelected() {
+        Set<Integer> sensitive = SlowQueryListener.sensitiveParameters(
+                "select u.id, u.password from users u where u.email=?");
+
+        assertTrue(sensitive.isEmpty());
+    }
+
+    @Test
+    void slowQueryLog_shouldDropOldestRecords_andListMostRecentFirst() {
+        SlowQueryLog log = new SlowQueryLog(2);
+
+        for (int i = 0; i < 3; i++) {
+            log.add(query(log.nextId()));
+        }
+
+        List<SlowQuery> queries = log.findAll();
+        assertEquals(2, queries.size());
+        assertEquals(3, queries.get(0).getId());
+        assertEquals(2, queries.get(1).getId());
+        assertFalse(log.findById(1).isPresent());
+    }
+
+    private static SlowQuery query(long id) {
+        return new SlowQuery(id, LocalDateTime.now(), 300, "select 1", Collections.emptyList(), 0, null, null);
+    }
+}
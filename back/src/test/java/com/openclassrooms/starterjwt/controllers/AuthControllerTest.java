@@ -3,6 +3,7 @@ package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.PasswordHashingExecutor;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +12,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -18,11 +21,14 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
-import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -45,6 +51,9 @@ class AuthControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @SpyBean
+    private PasswordHashingExecutor passwordHashingExecutor;
+
     @AfterEach
     void tearDown() {
         SecurityContextHolder.clearContext();
@@ -63,6 +72,7 @@ class AuthControllerTest {
                 .username("admin@mail.com")
                 .firstName("Fatou")
                 .lastName("Drame")
+                .admin(true)
                 .password("encoded")
                 .build();
 
@@ -74,13 +84,7 @@ class AuthControllerTest {
 
         when(jwtUtils.generateJwtToken(any(Authentication.class))).thenReturn("jwt-token");
 
-        User user = new User();
-        user.setAdmin(true);
-        when(userRepository.findByEmail("admin@mail.com")).thenReturn(Optional.of(user));
-
-        mockMvc.perform(post("/api/auth/login")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(json))
+        performAsync("/api/auth/login", json)
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.token").value("jwt-token"))
@@ -93,11 +97,12 @@ class AuthControllerTest {
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(jwtUtils).generateJwtToken(any(Authentication.class));
-        verify(userRepository).findByEmail("admin@mail.com");
+        // le flag admin vient du chargement fait par l'authentification : pas de seconde requête
+        verifyNoInteractions(userRepository);
     }
 
     @Test
-    void login_shouldReturn200_andAdminFalse_whenUserNotFoundInDb() throws Exception {
+    void login_shouldReturn200_andAdminFalse_whenUserIsNotAdmin() throws Exception {
         String json =
                 "{"
                         + "\"email\":\"user@mail.com\","
@@ -109,6 +114,7 @@ class AuthControllerTest {
                 .username("user@mail.com")
                 .firstName("User")
                 .lastName("Test")
+                .admin(false)
                 .password("encoded")
                 .build();
 
@@ -118,15 +124,12 @@ class AuthControllerTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
         when(jwtUtils.generateJwtToken(any(Authentication.class))).thenReturn("jwt-token");
-        when(userRepository.findByEmail("user@mail.com")).thenReturn(Optional.empty());
 
-        mockMvc.perform(post("/api/auth/login")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(json))
+        performAsync("/api/auth/login", json)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.admin").value(false));
 
-        verify(userRepository).findByEmail("user@mail.com");
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -152,9 +155,7 @@ class AuthControllerTest {
 
         when(userRepository.existsByEmail("test@mail.com")).thenReturn(true);
 
-        mockMvc.perform(post("/api/auth/register")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(json))
+        performAsync("/api/auth/register", json)
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Error: Email is already taken!"));
 
@@ -175,9 +176,7 @@ class AuthControllerTest {
         when(userRepository.existsByEmail("new@mail.com")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn("encodedPwd");
 
-        mockMvc.perform(post("/api/auth/register")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(json))
+        performAsync("/api/auth/register", json)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("User registered successfully!"));
 
@@ -196,4 +195,55 @@ class AuthControllerTest {
 
         verifyNoInteractions(userRepository, passwordEncoder);
     }
+
+    @Test
+    void login_shouldReturn503_withRetryAfter_whenHashingQueueIsFull() throws Exception {
+        String json =
+                "{"
+                        + "\"email\":\"user@mail.com\","
+                        + "\"password\":\"password123\""
+                        + "}";
+
+        doThrow(new RejectedExecutionException()).when(passwordHashingExecutor).submit(any());
+
+        performAsync("/api/auth/login", json)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.message").value("Error: the server is busy, retry later"));
+
+        verifyNoInteractions(authenticationManager, jwtUtils, userRepository);
+    }
+
+    @Test
+    void register_shouldReturn503_whenHashingQueueIsFull() throws Exception {
+        String json =
+                "{"
+                        + "\"email\":\"new@mail.com\","
+                        + "\"firstName\":\"Fatou\","
+                        + "\"lastName\":\"Drame\","
+                        + "\"password\":\"password123\""
+                        + "}";
+
+        doThrow(new RejectedExecutionException()).when(passwordHashingExecutor).submit(any());
+
+        performAsync("/api/auth/register", json)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("$.message").value("Error: the server is busy, retry later"));
+
+        verifyNoInteractions(userRepository, passwordEncoder);
+    }
+
+    /**
+     * Login et inscription répondent de façon asynchrone : on attend la fin
+     * de la tâche puis on rejoue le dispatch pour lire la réponse.
+     */
+    private ResultActions performAsync(String url, String json) throws Exception {
+        MvcResult result = mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
 }
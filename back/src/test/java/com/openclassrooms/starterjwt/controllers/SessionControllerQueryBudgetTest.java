@@ -0,0 +1,143 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.config.QueryBudget;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Nombre exact de requêtes SQL par endpoint, contre H2. Un échec ici signale
+ * une requête en plus (N+1, relecture inutile) : ajuster le budget seulement
+ * si la requête supplémentaire est voulue.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+class SessionControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionService sessionService;
+
+    private Long sessionId;
+
+    private List<Long> userIds;
+
+    @BeforeEach
+    void setUp() {
+        userIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            userIds.add(userRepository.save(new User()
+                    .setEmail("budget" + i + "@test.com")
+                    .setFirstName("John")
+                    .setLastName("Doe")
+                    .setPassword("password")
+                    .setAdmin(false)).getId());
+        }
+        for (int i = 0; i < 3; i++) {
+            Long id = sessionRepository.save(new Session()
+                    .setName("Budget " + i)
+                    .setDate(new Date())
+                    .setDescription("Query budget")
+                    .setCapacity(10)
+                    .setUsers(new ArrayList<>())).getId();
+            if (sessionId == null) {
+                sessionId = id;
+            }
+        }
+        // des participants ne doivent pas ajouter de requête à la lecture
+        for (Long userId : userIds.subList(0, 4)) {
+            sessionService.participate(sessionId, userId);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void findById_shouldRunTwoStatements() throws Exception {
+        QueryBudget.reset();
+
+        mockMvc.perform(get("/api/session/{id}", sessionId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(4));
+
+        // version puis vue agrégée
+        QueryBudget.assertStatements(2);
+    }
+
+    @Test
+    void findById_shouldRunOneStatement_whenNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/session/{id}", sessionId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        QueryBudget.reset();
+
+        mockMvc.perform(get("/api/session/{id}", sessionId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        QueryBudget.assertStatements(1);
+    }
+
+    @Test
+    void findAll_shouldRunTwoStatements_whateverTheNumberOfSessions() throws Exception {
+        QueryBudget.reset();
+
+        mockMvc.perform(get("/api/session"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+
+        // watermark puis page
+        QueryBudget.assertStatements(2);
+    }
+
+    @Test
+    void participate_shouldRunFourStatements() throws Exception {
+        QueryBudget.reset();
+
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", sessionId, userIds.get(4)))
+                .andExpect(status().isOk());
+
+        // existence de la session et de l'utilisateur, place réservée, inscription
+        QueryBudget.assertStatements(4);
+        QueryBudget.assertSelects(2);
+    }
+
+    @Test
+    void noLongerParticipate_shouldRunThreeStatements() throws Exception {
+        QueryBudget.reset();
+
+        mockMvc.perform(delete("/api/session/{id}/participate/{userId}", sessionId, userIds.get(0)))
+                .andExpect(status().isOk());
+
+        QueryBudget.assertStatements(3);
+    }
+}
@@ -1,18 +1,37 @@
 package com.openclassrooms.starterjwt.controllers;
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
+import com.openclassrooms.starterjwt.exception.UnknownUserException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.SessionPatchRequest;
+import com.openclassrooms.starterjwt.payload.response.ImportReport;
+import com.openclassrooms.starterjwt.payload.response.ParticipationResult;
+import com.openclassrooms.starterjwt.repository.SessionView;
+import com.openclassrooms.starterjwt.repository.Watermark;
+import com.openclassrooms.starterjwt.services.SessionExportService;
+import com.openclassrooms.starterjwt.services.SessionImportService;
 import com.openclassrooms.starterjwt.services.SessionService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -27,12 +46,89 @@ class SessionControllerTest {
     @Autowired
     MockMvc mockMvc;
 
+    private static final String SESSION_JSON = "{\"name\":\"Yoga\",\"date\":1700000000000,"
+            + "\"description\":\"A simple session\",\"teacher_id\":1,\"users\":[]}";
+
     @MockBean
     SessionService sessionService;
 
     @MockBean
     SessionMapper sessionMapper;
 
+    @MockBean
+    SessionExportService sessionExportService;
+
+    @MockBean
+    SessionImportService sessionImportService;
+
+    @Test
+    void export_shouldStreamServiceOutput() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("[{\"id\":1}]".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(sessionExportService).export(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/session/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"sessions.json\""))
+                .andExpect(content().json("[{\"id\":1}]"));
+
+        verifyNoInteractions(sessionService, sessionMapper);
+    }
+
+    @Test
+    void importJson_shouldReturnReport() throws Exception {
+        ImportReport report = new ImportReport();
+        report.rowReceived();
+        report.rowReceived();
+        report.rowsImported(1);
+        report.addError(2, "Unknown teacher id: 9");
+        when(sessionImportService.importJson(any(InputStream.class))).thenReturn(report);
+
+        mockMvc.perform(post("/api/session/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Unknown teacher id: 9"));
+
+        verify(sessionImportService).importJson(any(InputStream.class));
+        verifyNoInteractions(sessionService, sessionMapper);
+    }
+
+    @Test
+    void importCsv_shouldUseCsvImport() throws Exception {
+        when(sessionImportService.importCsv(any(InputStream.class))).thenReturn(new ImportReport());
+
+        mockMvc.perform(post("/api/session/import")
+                        .contentType(SessionController.TEXT_CSV_VALUE)
+                        .content("name,date,description,teacher_id\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(0));
+
+        verify(sessionImportService).importCsv(any(InputStream.class));
+        verify(sessionImportService, never()).importJson(any(InputStream.class));
+    }
+
+    @Test
+    void importCsv_shouldReturn400_whenFileMalformed() throws Exception {
+        when(sessionImportService.importCsv(any(InputStream.class)))
+                .thenThrow(new IllegalArgumentException("Missing CSV column: date"));
+
+        mockMvc.perform(post("/api/session/import")
+                        .contentType(SessionController.TEXT_CSV_VALUE)
+                        .content("name\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: Missing CSV column: date"));
+    }
+
     @Test
     void findById_shouldReturn400_whenIdNotNumeric() throws Exception {
         mockMvc.perform(get("/api/session/abc"))
@@ -43,42 +139,136 @@ class SessionControllerTest {
 
     @Test
     void findById_shouldReturn404_whenNotFound() throws Exception {
-        when(sessionService.getById(1L)).thenReturn(null);
+        when(sessionService.getVersion(1L)).thenReturn(null);
 
         mockMvc.perform(get("/api/session/1"))
                 .andExpect(status().isNotFound());
 
-        verify(sessionService).getById(1L);
+        verify(sessionService, never()).getViewById(1L);
         verifyNoInteractions(sessionMapper);
     }
 
     @Test
     void findById_shouldReturn200_whenFound() throws Exception {
-        Session session = new Session();
-        when(sessionService.getById(1L)).thenReturn(session);
+        SessionView session = mock(SessionView.class);
+        when(sessionService.getViewById(1L)).thenReturn(session);
 
-        when(sessionMapper.toDto(session)).thenReturn(new SessionDto());
+        when(sessionMapper.viewToDto(session)).thenReturn(new SessionDto());
 
         mockMvc.perform(get("/api/session/1"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
 
-        verify(sessionService).getById(1L);
-        verify(sessionMapper).toDto(session);
+        verify(sessionService).getViewById(1L);
+        verify(sessionMapper).viewToDto(session);
     }
 
     @Test
     void findAll_shouldReturn200() throws Exception {
-        List<Session> sessions = Arrays.asList(new Session(), new Session());
-        when(sessionService.findAll()).thenReturn(sessions);
-        when(sessionMapper.toDto(sessions)).thenReturn(Collections.emptyList());
+        List<SessionView> sessions = Arrays.asList(mock(SessionView.class), mock(SessionView.class));
+        when(sessionService.getWatermark()).thenReturn(watermark(2L, LocalDateTime.of(2024, 1, 1, 10, 0)));
+        when(sessionService.findPage(null, null, null, null, SessionService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new SliceImpl<>(sessions));
+        when(sessionMapper.viewToDto(sessions)).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/session"))
                 .andExpect(status().isOk())
-                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().doesNotExist(SessionController.NEXT_CURSOR_HEADER));
+
+        verify(sessionService).findPage(null, null, null, null, SessionService.DEFAULT_PAGE_SIZE);
+        verify(sessionMapper).viewToDto(sessions);
+    }
+
+    @Test
+    void findAll_shouldReturnNextCursor_whenMoreSessions() throws Exception {
+        Date date = new Date(1700000000000L);
+        SessionView last = mock(SessionView.class);
+        when(last.getId()).thenReturn(7L);
+        when(last.getDate()).thenReturn(date);
+        List<SessionView> sessions = Arrays.asList(mock(SessionView.class), last);
+        SessionCursor cursor = new SessionCursor(new Date(1600000000000L), 3L);
+        when(sessionService.getWatermark()).thenReturn(watermark(2L, LocalDateTime.of(2024, 1, 1, 10, 0)));
+        when(sessionService.findPage(any(), any(), eq(2L), eq(cursor), eq(2)))
+                .thenReturn(new SliceImpl<>(sessions, PageRequest.of(0, 2), true));
+        when(sessionMapper.viewToDto(sessions)).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/session")
+                        .param("from", "2023-01-01T00:00:00Z")
+                        .param("to", "2024-01-01")
+                        .param("teacher_id", "2")
+                        .param("cursor", cursor.encode())
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SessionController.NEXT_CURSOR_HEADER, new SessionCursor(date, 7L).encode()));
+    }
+
+    @Test
+    void findAll_shouldReturn304_whenWatermarkUnchanged() throws Exception {
+        when(sessionService.getWatermark()).thenReturn(watermark(2L, LocalDateTime.of(2024, 1, 1, 10, 0)));
+        when(sessionService.findPage(any(), any(), any(), any(), anyInt()))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+        when(sessionMapper.viewToDto(anyList())).thenReturn(Collections.emptyList());
+
+        String eTag = mockMvc.perform(get("/api/session"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Rien n'a changé : ni requête de page, ni mapping
+        clearInvocations(sessionService, sessionMapper);
+        mockMvc.perform(get("/api/session").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+
+        verify(sessionService, never()).findPage(any(), any(), any(), any(), anyInt());
+        verifyNoInteractions(sessionMapper);
+
+        // Une session modifiée déplace le watermark : nouvelle réponse complète
+        when(sessionService.getWatermark()).thenReturn(watermark(2L, LocalDateTime.of(2024, 1, 1, 10, 5)));
+        mockMvc.perform(get("/api/session").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+
+        // Les filtres font partie de l'ETag
+        mockMvc.perform(get("/api/session").param("teacher_id", "1").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void findById_shouldReturn304_whenSessionUnchanged() throws Exception {
+        when(sessionService.getVersion(1L)).thenReturn(3L);
+        SessionView session = mock(SessionView.class);
+        when(session.getVersion()).thenReturn(3L);
+        when(sessionService.getViewById(1L)).thenReturn(session);
+        when(sessionMapper.viewToDto(session)).thenReturn(new SessionDto());
+
+        String eTag = mockMvc.perform(get("/api/session/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andReturn().getResponse().getHeader("ETag");
+
+        clearInvocations(sessionService, sessionMapper);
+        mockMvc.perform(get("/api/session/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        verify(sessionService, never()).getViewById(any());
+        verifyNoInteractions(sessionMapper);
+    }
+
+    @Test
+    void findAll_shouldReturn400_whenCursorInvalid() throws Exception {
+        mockMvc.perform(get("/api/session").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sessionService, sessionMapper);
+    }
+
+    @Test
+    void findAll_shouldReturn400_whenTeacherIdNotNumeric() throws Exception {
+        mockMvc.perform(get("/api/session").param("teacher_id", "abc"))
+                .andExpect(status().isBadRequest());
 
-        verify(sessionService).findAll();
-        verify(sessionMapper).toDto(sessions);
+        verifyNoInteractions(sessionService, sessionMapper);
     }
 
     @Test
@@ -111,6 +301,29 @@ class SessionControllerTest {
         verify(sessionMapper).toDto(saved);
     }
 
+    @Test
+    void create_shouldReturn400_whenUserUnknown() throws Exception {
+        String json =
+                "{"
+                        + "\"name\":\"Yoga morning\","
+                        + "\"date\":1700000000000,"
+                        + "\"description\":\"A simple session\","
+                        + "\"teacher_id\":1,"
+                        + "\"users\":[42]"
+                        + "}";
+
+        when(sessionMapper.toEntity(any(SessionDto.class)))
+                .thenThrow(new UnknownUserException(Collections.singletonList(42L)));
+
+        mockMvc.perform(post("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: Unknown user ids: [42]"));
+
+        verifyNoInteractions(sessionService);
+    }
+
     @Test
     void update_shouldReturn400_whenIdNotNumeric() throws Exception {
         mockMvc.perform(put("/api/session/abc")
@@ -131,6 +344,105 @@ class SessionControllerTest {
         verifyNoInteractions(sessionService, sessionMapper);
     }
 
+    @Test
+    void update_shouldPassIfMatchVersion_andReturnNewETag() throws Exception {
+        Session entity = new Session();
+        Session saved = new Session().setVersion(5L);
+        when(sessionMapper.toEntity(any(SessionDto.class))).thenReturn(entity);
+        when(sessionService.update(1L, entity, 4L)).thenReturn(saved);
+        when(sessionMapper.toDto(saved)).thenReturn(new SessionDto());
+
+        mockMvc.perform(put("/api/session/1")
+                        .header("If-Match", "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(SESSION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""));
+
+        verify(sessionService).update(1L, entity, 4L);
+    }
+
+    @Test
+    void update_shouldReturn412_whenIfMatchIsNotAVersion() throws Exception {
+        when(sessionMapper.toEntity(any(SessionDto.class))).thenReturn(new Session());
+
+        mockMvc.perform(put("/api/session/1")
+                        .header("If-Match", "W/\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(SESSION_JSON))
+                .andExpect(status().isPreconditionFailed());
+
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void update_shouldReturn412_whenSessionChangedConcurrently() throws Exception {
+        Session entity = new Session();
+        when(sessionMapper.toEntity(any(SessionDto.class))).thenReturn(entity);
+        when(sessionService.update(1L, entity, null))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Session.class, 1L));
+
+        mockMvc.perform(put("/api/session/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(SESSION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Error: the session was modified by another request"));
+    }
+
+    @Test
+    void patch_shouldReturn412_whenVersionStale() throws Exception {
+        when(sessionService.patch(eq(1L), any(SessionPatchRequest.class), eq(2L)))
+                .thenThrow(new PreconditionFailedException());
+
+        mockMvc.perform(patch("/api/session/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(SessionController.MERGE_PATCH_JSON_VALUE)
+                        .content("{\"name\":\"Yoga\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(sessionService, never()).getViewById(any());
+    }
+
+    @Test
+    void patch_shouldReturnSessionView() throws Exception {
+        SessionView view = mock(SessionView.class);
+        SessionDto dto = new SessionDto();
+        dto.setDescription("Apres");
+        when(sessionService.getViewById(1L)).thenReturn(view);
+        when(sessionMapper.viewToDto(view)).thenReturn(dto);
+
+        mockMvc.perform(patch("/api/session/1")
+                        .contentType(SessionController.MERGE_PATCH_JSON_VALUE)
+                        .content("{\"description\":\"Apres\",\"capacity\":null}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Apres"));
+
+        verify(sessionService).patch(eq(1L), argThat(patch ->
+                patch.has("description") && patch.has("capacity") && !patch.has("name")), isNull());
+        verify(sessionMapper, never()).toEntity(any(SessionDto.class));
+    }
+
+    @Test
+    void patch_shouldReturn400_whenFieldUnsupported() throws Exception {
+        when(sessionService.patch(eq(1L), any(SessionPatchRequest.class), isNull()))
+                .thenThrow(new IllegalArgumentException("Cannot patch users"));
+
+        mockMvc.perform(patch("/api/session/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"users\":[2]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: Cannot patch users"));
+    }
+
+    @Test
+    void patch_shouldReturn400_whenIdNotNumeric() throws Exception {
+        mockMvc.perform(patch("/api/session/abc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sessionService);
+    }
 
     @Test
     void delete_shouldReturn400_whenIdNotNumeric() throws Exception {
@@ -193,4 +505,59 @@ class SessionControllerTest {
 
         verify(sessionService).noLongerParticipate(1L, 2L);
     }
+
+    @Test
+    void addParticipants_shouldReturnResultPerUser() throws Exception {
+        when(sessionService.addParticipants(1L, Arrays.asList(2L, 3L))).thenReturn(Arrays.asList(
+                new ParticipationResult(2L, ParticipationResult.Status.ADDED),
+                new ParticipationResult(3L, ParticipationResult.Status.UNKNOWN_USER)));
+
+        mockMvc.perform(post("/api/session/1/participants")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[2,3]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].userId").value(2))
+                .andExpect(jsonPath("$[0].status").value("ADDED"))
+                .andExpect(jsonPath("$[1].status").value("UNKNOWN_USER"));
+    }
+
+    @Test
+    void addParticipants_shouldReturn400_whenListEmpty() throws Exception {
+        mockMvc.perform(post("/api/session/1/participants")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void removeParticipants_shouldReturnResultPerUser() throws Exception {
+        when(sessionService.removeParticipants(1L, Collections.singletonList(2L))).thenReturn(Collections.singletonList(
+                new ParticipationResult(2L, ParticipationResult.Status.REMOVED)));
+
+        mockMvc.perform(delete("/api/session/1/participants")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("REMOVED"));
+    }
+
+    @Test
+    void removeParticipants_shouldReturn400_whenIdNotNumeric() throws Exception {
+        mockMvc.perform(delete("/api/session/abc/participants")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[2]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sessionService);
+    }
+
+    private static Watermark watermark(Long count, LocalDateTime lastUpdate) {
+        return new Watermark() {
+            public Long getCount() { return count; }
+            public Long getMaxId() { return count; }
+            public LocalDateTime getLastUpdate() { return lastUpdate; }
+        };
+    }
 }
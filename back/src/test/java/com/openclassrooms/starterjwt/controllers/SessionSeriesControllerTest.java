@@ -0,0 +1,144 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+class SessionSeriesControllerTest {
+
+    private static final String BODY = "{\"name\":\"Hatha\",\"description\":\"Hatha du mardi\",\"teacher_id\":1,"
+            + "\"recurrence\":\"FREQ=WEEKLY;BYDAY=TU\",\"startsAt\":1700000000000}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SessionSeriesService sessionSeriesService;
+
+    @MockBean
+    private SessionSeriesMapper sessionSeriesMapper;
+
+    @Test
+    void findById_shouldReturn400_whenIdNotNumeric() throws Exception {
+        mockMvc.perform(get("/api/series/abc"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sessionSeriesService, sessionSeriesMapper);
+    }
+
+    @Test
+    void findById_shouldReturn404_whenNotFound() throws Exception {
+        when(sessionSeriesService.getById(1L)).thenReturn(null);
+
+        mockMvc.perform(get("/api/series/1"))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(sessionSeriesMapper);
+    }
+
+    @Test
+    void findAll_shouldReturn200() throws Exception {
+        when(sessionSeriesService.findAll()).thenReturn(Collections.emptyList());
+        when(sessionSeriesMapper.toDto(Collections.<SessionSeries>emptyList())).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/series"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void create_shouldReturn200() throws Exception {
+        SessionSeries series = new SessionSeries().setTeacher(new Teacher()).setStartsAt(new Date(1700000000000L));
+        SessionSeriesDto dto = new SessionSeriesDto();
+        dto.setId(3L);
+        when(sessionSeriesMapper.toEntity(any(SessionSeriesDto.class))).thenReturn(series);
+        when(sessionSeriesService.create(series)).thenReturn(series);
+        when(sessionSeriesMapper.toDto(series)).thenReturn(dto);
+
+        mockMvc.perform(post("/api/series")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(3));
+
+        verify(sessionSeriesService).create(series);
+    }
+
+    @Test
+    void create_shouldReturn400_whenTeacherUnknown() throws Exception {
+        when(sessionSeriesMapper.toEntity(any(SessionSeriesDto.class))).thenReturn(new SessionSeries());
+
+        mockMvc.perform(post("/api/series")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: Unknown teacher id: 1"));
+
+        verifyNoInteractions(sessionSeriesService);
+    }
+
+    @Test
+    void create_shouldReturn400_whenRecurrenceInvalid() throws Exception {
+        SessionSeries series = new SessionSeries().setTeacher(new Teacher()).setStartsAt(new Date(1700000000000L));
+        when(sessionSeriesMapper.toEntity(any(SessionSeriesDto.class))).thenReturn(series);
+        when(sessionSeriesService.create(series)).thenThrow(new IllegalArgumentException("Unsupported recurrence frequency: MONTHLY"));
+
+        mockMvc.perform(post("/api/series")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: Unsupported recurrence frequency: MONTHLY"));
+    }
+
+    @Test
+    void update_shouldReturn400_whenIdNotNumeric() throws Exception {
+        mockMvc.perform(put("/api/series/abc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sessionSeriesService);
+    }
+
+    @Test
+    void update_shouldReturn200() throws Exception {
+        SessionSeries series = new SessionSeries().setTeacher(new Teacher()).setStartsAt(new Date(1700000000000L));
+        when(sessionSeriesMapper.toEntity(any(SessionSeriesDto.class))).thenReturn(series);
+        when(sessionSeriesService.update(eq(1L), eq(series))).thenReturn(series);
+
+        mockMvc.perform(put("/api/series/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isOk());
+
+        verify(sessionSeriesService).update(1L, series);
+    }
+
+    @Test
+    void delete_shouldReturn200() throws Exception {
+        mockMvc.perform(delete("/api/series/1"))
+                .andExpect(status().isOk());
+
+        verify(sessionSeriesService).delete(1L);
+    }
+}
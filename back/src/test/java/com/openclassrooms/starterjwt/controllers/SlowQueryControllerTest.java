@@ -0,0 +1,83 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.payload.response.SlowQuery;
+import com.openclassrooms.starterjwt.services.SlowQueryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@WithMockUser(roles = "ADMIN")
+class SlowQueryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SlowQueryService slowQueryService;
+
+    @Test
+    void findAll_shouldReturnRecordedQueries() throws Exception {
+        SlowQuery query = new SlowQuery(7L, LocalDateTime.now(), 350, "select 1",
+                List.of(List.of("a@b.com")), 0, "UserRepository.findByEmail", Collections.emptyList());
+        when(slowQueryService.findAll()).thenReturn(List.of(query));
+
+        mockMvc.perform(get("/api/admin/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].elapsedMs").value(350))
+                .andExpect(jsonPath("$[0].caller").value("UserRepository.findByEmail"))
+                .andExpect(jsonPath("$[0].explainable").value(true))
+                // les valeurs brutes ne sortent jamais
+                .andExpect(jsonPath("$[0].explainParameters").doesNotExist());
+    }
+
+    @Test
+    void clear_shouldReturn200() throws Exception {
+        mockMvc.perform(delete("/api/admin/slow-queries"))
+                .andExpect(status().isOk());
+
+        verify(slowQueryService).clear();
+    }
+
+    @Test
+    void explain_shouldReturnPlan() throws Exception {
+        when(slowQueryService.explain(7L)).thenReturn(List.of(Map.of("PLAN", "SELECT ...")));
+
+        mockMvc.perform(get("/api/admin/slow-queries/7/explain"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].PLAN").value("SELECT ..."));
+    }
+
+    @Test
+    void explain_shouldReturn400_whenIdNotNumeric() throws Exception {
+        mockMvc.perform(get("/api/admin/slow-queries/abc/explain"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(slowQueryService);
+    }
+
+    @Test
+    void explain_shouldReturn400_whenStatementCannotBeExplained() throws Exception {
+        when(slowQueryService.explain(7L)).thenThrow(new IllegalArgumentException("Only SELECT statements can be explained"));
+
+        mockMvc.perform(get("/api/admin/slow-queries/7/explain"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: Only SELECT statements can be explained"));
+    }
+}
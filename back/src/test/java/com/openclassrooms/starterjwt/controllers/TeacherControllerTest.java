@@ -10,10 +10,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -74,4 +76,41 @@ class TeacherControllerTest {
         verify(teacherService).findAll();
         verify(teacherMapper).toDto(anyList());
     }
+
+    @Test
+    void findAll_shouldReturn304_whenTeachersUnchanged() throws Exception {
+        Teacher teacher = new Teacher().setId(1L).setUpdatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        when(teacherService.findAll()).thenReturn(Collections.singletonList(teacher));
+        when(teacherMapper.toDto(anyList())).thenReturn(Collections.emptyList());
+
+        String eTag = mockMvc.perform(get("/api/teacher"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        clearInvocations(teacherMapper);
+        mockMvc.perform(get("/api/teacher").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(teacherMapper);
+
+        // un enseignant modifié => nouvel ETag
+        teacher.setUpdatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+        mockMvc.perform(get("/api/teacher").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void findById_shouldReturn304_whenTeacherUnchanged() throws Exception {
+        Teacher teacher = new Teacher().setId(1L).setUpdatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        when(teacherService.findById(1L)).thenReturn(teacher);
+
+        String eTag = mockMvc.perform(get("/api/teacher/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        clearInvocations(teacherMapper);
+        mockMvc.perform(get("/api/teacher/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(teacherMapper);
+    }
 }
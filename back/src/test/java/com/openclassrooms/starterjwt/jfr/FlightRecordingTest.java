@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.jfr;
+
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingTest {
+
+    @Test
+    void shouldWriteYogaEvents_whenStopped(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("yoga.jfr");
+        FlightRecording recording = new FlightRecording("default", file.toString(), 5);
+
+        recording.afterPropertiesSet();
+        TokenValidationEvent event = new TokenValidationEvent();
+        event.begin();
+        event.commit("cached");
+        recording.destroy();
+
+        assertTrue(Files.exists(file));
+        // les réglages de jfr/yoga.jfc activent les événements de l'application
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .anyMatch(recorded -> recorded.getEventType().getName().equals("com.openclassrooms.yoga.TokenValidation")
+                        && "cached".equals(recorded.getString("outcome"))));
+    }
+}
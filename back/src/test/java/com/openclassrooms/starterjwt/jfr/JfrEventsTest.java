@@ -0,0 +1,146 @@
+package com.openclassrooms.starterjwt.jfr;
+
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import com.openclassrooms.starterjwt.services.SessionService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Enregistrement JFR limité aux événements de l'application, relu depuis le
+ * fichier produit.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class JfrEventsTest {
+
+    @Autowired
+    private SessionMapper sessionMapper;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    private Recording recording;
+
+    @BeforeEach
+    void startRecording() {
+        recording = new Recording();
+        recording.enable(SessionMappingEvent.class).withThreshold(Duration.ZERO);
+        recording.enable(SessionOperationEvent.class).withThreshold(Duration.ZERO);
+        recording.enable(UserResolutionEvent.class).withThreshold(Duration.ZERO);
+        recording.start();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        recording.close();
+        sessionRepository.deleteAll();
+    }
+
+    @Test
+    void toDto_shouldEmitMappingEvent() throws Exception {
+        Session session = new Session().setId(42L).setName("Yoga").setUsers(new ArrayList<>());
+
+        sessionMapper.toDto(session);
+
+        List<RecordedEvent> events = stop("com.openclassrooms.yoga.SessionMapping");
+        assertEquals(1, events.size());
+        assertEquals("toDto", events.get(0).getString("direction"));
+        assertEquals(42L, events.get(0).getLong("sessionId"));
+        assertEquals(0, events.get(0).getInt("participants"));
+    }
+
+    @Test
+    void sessionService_shouldEmitOperationEvent_withOutcome() throws Exception {
+        Session created = sessionService.create(new Session()
+                .setName("Yoga")
+                .setDate(new Date())
+                .setDescription("JFR")
+                .setUsers(new ArrayList<>()));
+        assertThrows(NotFoundException.class, () -> sessionService.participate(created.getId(), -1L));
+
+        List<RecordedEvent> events = stop("com.openclassrooms.yoga.SessionOperation");
+        RecordedEvent create = find(events, "create");
+        assertEquals(created.getId().longValue(), create.getLong("sessionId"));
+        assertEquals("ok", create.getString("outcome"));
+
+        RecordedEvent participate = find(events, "participate");
+        assertEquals(created.getId().longValue(), participate.getLong("sessionId"));
+        assertEquals("NotFoundException", participate.getString("outcome"));
+    }
+
+    @Test
+    void getById_shouldNotLoadParticipants_outsideATransaction() throws Exception {
+        Long id = sessionRepository.save(new Session()
+                .setName("Yoga")
+                .setDate(new Date())
+                .setDescription("JFR")
+                .setUsers(new ArrayList<>())).getId();
+
+        // hors transaction, charger la liste paresseuse lèverait LazyInitializationException
+        Session session = sessionService.getById(id);
+
+        assertFalse(Hibernate.isInitialized(session.getUsers()));
+        RecordedEvent getById = find(stop("com.openclassrooms.yoga.SessionOperation"), "getById");
+        assertEquals(id.longValue(), getById.getLong("sessionId"));
+        assertEquals(0, getById.getInt("participants"));
+        assertEquals("ok", getById.getString("outcome"));
+    }
+
+    @Test
+    void loadUserByUsername_shouldEmitResolutionEvent_whenUserIsUnknown() throws Exception {
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("nobody@test.com"));
+
+        List<RecordedEvent> events = stop("com.openclassrooms.yoga.UserResolution");
+        assertEquals(1, events.size());
+        assertFalse(events.get(0).getBoolean("found"));
+    }
+
+    private List<RecordedEvent> stop(String eventName) throws Exception {
+        recording.stop();
+        Path file = Files.createTempFile("yoga", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(eventName))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String operation) {
+        return events.stream()
+                .filter(event -> operation.equals(event.getString("operation")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no event for " + operation));
+    }
+}
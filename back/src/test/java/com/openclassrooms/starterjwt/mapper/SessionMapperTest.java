@@ -1,9 +1,11 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.UnknownUserException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionView;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.Test;
@@ -11,6 +13,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,7 +22,9 @@ import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 class SessionMapperTest {
@@ -103,7 +109,7 @@ class SessionMapperTest {
                 .build();
 
         when(teacherService.findById(1L)).thenReturn(teacher);
-        when(userService.findById(1L)).thenReturn(user);
+        when(userService.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(user));
 
         SessionDto dto = new SessionDto();
         dto.setId(1L);
@@ -124,6 +130,65 @@ class SessionMapperTest {
         assertNotNull(session.getTeacher());
         assertEquals(1L, session.getTeacher().getId());
         assertEquals(1, session.getUsers().size());
+        verify(userService).findAllById(Arrays.asList(1L));
+        verify(userService, never()).findById(anyLong());
+    }
+
+    @Test
+    void shouldResolveAllUsersWithOneQuery() {
+        // Arrange
+        User user1 = User.builder().id(1L).email("user1@test.com").firstName("Alice").lastName("Smith").password("pass").build();
+        User user2 = User.builder().id(2L).email("user2@test.com").firstName("Bob").lastName("Johnson").password("pass").build();
+
+        // le repository ne garantit pas l'ordre
+        when(userService.findAllById(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(user1, user2));
+
+        SessionDto dto = new SessionDto();
+        dto.setName("Yoga Session");
+        dto.setDate(new Date());
+        dto.setDescription("Description");
+        dto.setUsers(Arrays.asList(2L, 1L, 2L));
+
+        // Act
+        Session session = sessionMapper.toEntity(dto);
+
+        // Assert
+        assertEquals(Arrays.asList(user2, user1), session.getUsers());
+        verify(userService, times(1)).findAllById(anyCollection());
+    }
+
+    @Test
+    void shouldReportUnknownUserIds() {
+        // Arrange
+        User user1 = User.builder().id(1L).email("user1@test.com").firstName("Alice").lastName("Smith").password("pass").build();
+        when(userService.findAllById(Arrays.asList(1L, 7L, 9L))).thenReturn(Arrays.asList(user1));
+
+        SessionDto dto = new SessionDto();
+        dto.setName("Yoga Session");
+        dto.setDate(new Date());
+        dto.setDescription("Description");
+        dto.setUsers(Arrays.asList(1L, 7L, 9L));
+
+        // Act
+        UnknownUserException exception = assertThrows(UnknownUserException.class, () -> sessionMapper.toEntity(dto));
+
+        // Assert
+        assertEquals(Arrays.asList(7L, 9L), exception.getUserIds());
+    }
+
+    @Test
+    void shouldNotQueryUsers_whenNoParticipant() {
+        SessionDto dto = new SessionDto();
+        dto.setName("Yoga Session");
+        dto.setDate(new Date());
+        dto.setDescription("Description");
+        dto.setUsers(null);
+
+        Session session = sessionMapper.toEntity(dto);
+
+        assertNotNull(session.getUsers());
+        assertTrue(session.getUsers().isEmpty());
+        verifyNoInteractions(userService);
     }
 
     @Test
@@ -190,6 +255,59 @@ class SessionMapperTest {
         assertEquals("Session 2", sessions.get(1).getName());
     }
 
+    @Test
+    void shouldMapViewToDto() {
+        // Arrange
+        Timestamp date = Timestamp.valueOf("2024-03-01 10:00:00");
+        Timestamp createdAt = Timestamp.valueOf("2024-01-01 08:30:00");
+        SessionView view = view(4L, date, createdAt, "3,5,12");
+
+        // Act
+        SessionDto dto = sessionMapper.viewToDto(view);
+
+        // Assert
+        assertEquals(4L, dto.getId());
+        assertEquals("View Session", dto.getName());
+        assertEquals(date.getTime(), dto.getDate().getTime());
+        assertEquals("From projection", dto.getDescription());
+        assertEquals(2L, dto.getTeacher_id());
+        assertEquals(Arrays.asList(3L, 5L, 12L), dto.getUsers());
+        assertEquals(20, dto.getCapacity());
+        assertEquals(3, dto.getBooked());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 8, 30), dto.getCreatedAt());
+        assertNull(dto.getUpdatedAt());
+        verifyNoInteractions(userService, teacherService);
+    }
+
+    @Test
+    void shouldMapViewWithoutParticipants() {
+        SessionView noParticipant = view(1L, new Date(), null, null);
+        SessionView binaryIds = view(2L, new Date(), null, "7,8".getBytes(StandardCharsets.UTF_8));
+
+        List<SessionDto> dtos = sessionMapper.viewToDto(Arrays.asList(noParticipant, binaryIds));
+
+        assertTrue(dtos.get(0).getUsers().isEmpty());
+        assertEquals(Arrays.asList(7L, 8L), dtos.get(1).getUsers());
+        assertNull(sessionMapper.viewToDto((SessionView) null));
+    }
+
+    private static SessionView view(Long id, Date date, Date createdAt, Object userIds) {
+        return new SessionView() {
+            public Long getId() { return id; }
+            public String getName() { return "View Session"; }
+            public Date getDate() { return date; }
+            public String getDescription() { return "From projection"; }
+            public Long getTeacherId() { return 2L; }
+            public Integer getCapacity() { return 20; }
+            public Integer getBooked() { return 3; }
+            public Long getSeriesId() { return null; }
+            public Long getVersion() { return 0L; }
+            public Object getUserIds() { return userIds; }
+            public Date getCreatedAt() { return createdAt; }
+            public Date getUpdatedAt() { return null; }
+        };
+    }
+
     @Test
     void shouldHandleNullSession() {
         // Act
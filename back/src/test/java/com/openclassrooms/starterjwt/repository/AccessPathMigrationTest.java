@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migrations V2_1 et V3 sur une base héritée (H2 en mode MySQL) : le schéma
+ * est d'abord migré en V2, rempli avec les doublons que l'ancien schéma
+ * acceptait, puis migré en V3.
+ */
+class AccessPathMigrationTest {
+
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void migrateToV2() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_UPPER=false;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        flyway("2").migrate();
+
+        jdbcTemplate.update("INSERT INTO SESSIONS (id, name, booked) VALUES (1, 'Yoga', 3)");
+        jdbcTemplate.update("INSERT INTO USERS (id, email) VALUES (1, 'john@test.com'), (2, 'jane@test.com')");
+    }
+
+    @Test
+    void migrate_shouldDropDuplicateParticipations_andRecountSeats() {
+        jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (1, 1), (1, 1), (1, 2), (1, NULL)");
+
+        flyway("3").migrate();
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PARTICIPATE", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT booked FROM SESSIONS WHERE id = 1", Integer.class));
+    }
+
+    @Test
+    void migrate_shouldFailWithTheEmail_whenEmailsAreDuplicated() {
+        jdbcTemplate.update("INSERT INTO USERS (id, email) VALUES (3, 'john@test.com')");
+
+        FlywayException e = assertThrows(FlywayException.class, () -> flyway("3").migrate());
+
+        String messages = messages(e);
+        assertTrue(messages.contains("merge these accounts before migrating: john@test.com (2 accounts)"), messages);
+        assertFalse(messages.contains("jane@test.com"), messages);
+        // V3 n'a pas été appliquée : l'index unique n'existe pas
+        assertEquals(1, jdbcTemplate.update("INSERT INTO USERS (id, email) VALUES (4, 'jane@test.com')"));
+    }
+
+    // Flyway enveloppe l'exception de la migration Java
+    private static String messages(Throwable e) {
+        StringBuilder messages = new StringBuilder();
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            messages.append(cause.getMessage()).append('\n');
+        }
+        return messages.toString();
+    }
+
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .target(target)
+                .load();
+    }
+}
@@ -0,0 +1,80 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie, via EXPLAIN sur le schéma créé par les migrations Flyway (H2 en
+ * mode MySQL), que chaque requête fréquente passe par un index et non par
+ * un parcours complet de table.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    private static final String TABLE_SCAN = "tableScan";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findByEmail_shouldUseEmailIndex() {
+        String plan = explain("SELECT * FROM USERS u WHERE u.email = 'yoga@studio.com'");
+
+        assertUses(plan, "ux_users_email");
+    }
+
+    @Test
+    void participantLookup_shouldUseParticipatePrimaryKey() {
+        // garde NOT EXISTS de addParticipant et DELETE de removeParticipant
+        String plan = explain("SELECT 1 FROM PARTICIPATE WHERE session_id = 1 AND user_id = 2");
+
+        assertUses(plan, "PRIMARY_KEY");
+    }
+
+    @Test
+    void sessionPage_shouldUseDateIndex() {
+        String plan = explain(page(SessionRepository.VIEW_PAGE));
+
+        // la page est prise dans l'index avant la jointure et le regroupement
+        assertUses(plan, "ix_sessions_date_id");
+        // jointure vers PARTICIPATE par la clé primaire (session_id, user_id)
+        assertUses(plan, "PRIMARY_KEY");
+    }
+
+    @Test
+    void sessionPageByTeacher_shouldUseTeacherDateIndex() {
+        String plan = explain(page(SessionRepository.VIEW_PAGE_BY_TEACHER).replace(":teacherId", "1"));
+
+        assertUses(plan, "ix_sessions_teacher_date_id");
+    }
+
+    @Test
+    void sessionWatermark_shouldBeAnsweredFromIndexes() {
+        String plan = explain("SELECT COUNT(s.id), MAX(s.id), MAX(s.updated_at) FROM SESSIONS s");
+
+        assertTrue(plan.contains("direct lookup"), plan);
+    }
+
+    private static String page(String sql) {
+        return sql
+                .replace(":afterDate", "TIMESTAMP '2024-01-01 00:00:00'")
+                .replace(":afterId", "0")
+                .replace(":to", "TIMESTAMP '2025-01-01 00:00:00'")
+                .replace(":limit", "21");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    private static void assertUses(String plan, String index) {
+        assertTrue(plan.contains(index), () -> "expected " + index + " in plan:\n" + plan);
+        assertFalse(plan.contains(TABLE_SCAN), () -> "unexpected table scan in plan:\n" + plan);
+    }
+}
@@ -9,6 +9,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Date;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -93,6 +95,76 @@ class JwtUtilsTest {
         assertEquals("test@test.com", email);
     }
 
+    @Test
+    void shouldParseAndValidateJwtToken() {
+        // Arrange
+        Authentication auth = mock(Authentication.class);
+        UserDetailsImpl userDetails = new UserDetailsImpl(
+                1L,
+                "test@test.com",
+                "John",
+                "Doe",
+                false,
+                "password"
+        );
+        when(auth.getPrincipal()).thenReturn(userDetails);
+
+        String token = jwtUtils.generateJwtToken(auth);
+
+        // Act
+        JwtValidationResult result = jwtUtils.parseAndValidate(token);
+
+        // Assert
+        assertTrue(result.isValid());
+        assertEquals(JwtValidationResult.Status.VALID, result.getStatus());
+        assertEquals("test@test.com", result.getSubject());
+        assertNotNull(result.getIssuedAt());
+        assertTrue(result.getExpiration().after(new Date()));
+    }
+
+    @Test
+    void shouldReturnExpiredStatusForExpiredToken() {
+        // Arrange
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", -1000);
+
+        Authentication auth = mock(Authentication.class);
+        when(auth.getPrincipal()).thenReturn(UserDetailsImpl.builder().username("test@test.com").build());
+
+        String token = jwtUtils.generateJwtToken(auth);
+
+        // Act
+        JwtValidationResult result = jwtUtils.parseAndValidate(token);
+
+        // Assert
+        assertFalse(result.isValid());
+        assertEquals(JwtValidationResult.Status.EXPIRED, result.getStatus());
+        assertNull(result.getSubject());
+    }
+
+    @Test
+    void shouldReturnInvalidSignatureStatusForTokenSignedWithAnotherKey() {
+        // Arrange
+        Authentication auth = mock(Authentication.class);
+        when(auth.getPrincipal()).thenReturn(UserDetailsImpl.builder().username("test@test.com").build());
+
+        JwtUtils otherJwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(otherJwtUtils, "jwtSecret", "anotherSecretKey");
+        ReflectionTestUtils.setField(otherJwtUtils, "jwtExpirationMs", 86400000);
+        String token = otherJwtUtils.generateJwtToken(auth);
+
+        // Act
+        JwtValidationResult result = jwtUtils.parseAndValidate(token);
+
+        // Assert
+        assertEquals(JwtValidationResult.Status.INVALID_SIGNATURE, result.getStatus());
+    }
+
+    @Test
+    void shouldReturnMalformedAndEmptyStatuses() {
+        assertEquals(JwtValidationResult.Status.MALFORMED, jwtUtils.parseAndValidate("invalid.token.here").getStatus());
+        assertEquals(JwtValidationResult.Status.EMPTY, jwtUtils.parseAndValidate("").getStatus());
+    }
+
     @Test
     void shouldReturnFalseForInvalidToken() {
         // Arrange
@@ -0,0 +1,107 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static UserDetailsImpl user(Long id) {
+        return UserDetailsImpl.builder()
+                .id(id)
+                .username("user" + id + "@test.com")
+                .firstName("John")
+                .lastName("Doe")
+                .password("password")
+                .build();
+    }
+
+    private static Date inOneHour() {
+        return new Date(System.currentTimeMillis() + 3600000);
+    }
+
+    @Test
+    void shouldReturnCachedUser_whenTokenNotExpired() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60000);
+        UserDetailsImpl user = user(1L);
+
+        cache.put("token-1", user, inOneHour());
+
+        assertSame(user, cache.get("token-1"));
+        assertNull(cache.get("token-2"));
+    }
+
+    @Test
+    void shouldNotCacheExpiredToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60000);
+
+        cache.put("token-1", user(1L), new Date(System.currentTimeMillis() - 1000));
+        cache.put("token-2", user(2L), null);
+
+        assertNull(cache.get("token-1"));
+        assertNull(cache.get("token-2"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldExpireEntry_afterTtl_evenIfTokenIsStillValid() {
+        // le rôle admin mis en cache ne doit pas survivre jusqu'à l'expiration du JWT
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 0);
+
+        cache.put("token-1", user(1L), inOneHour());
+
+        assertNull(cache.get("token-1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsed_whenFull() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, 60000);
+
+        cache.put("token-1", user(1L), inOneHour());
+        cache.put("token-2", user(2L), inOneHour());
+        // token-1 devient le plus récemment utilisé
+        cache.get("token-1");
+        cache.put("token-3", user(3L), inOneHour());
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("token-1"));
+        assertNull(cache.get("token-2"));
+        assertNotNull(cache.get("token-3"));
+    }
+
+    @Test
+    void shouldEvictAllTokensOfUser() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60000);
+
+        cache.put("token-1", user(1L), inOneHour());
+        cache.put("token-1-bis", user(1L), inOneHour());
+        cache.put("token-2", user(2L), inOneHour());
+
+        cache.evictUser(1L);
+
+        assertNull(cache.get("token-1"));
+        assertNull(cache.get("token-1-bis"));
+        assertNotNull(cache.get("token-2"));
+    }
+
+    @Test
+    void shouldClear() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60000);
+        cache.put("token-1", user(1L), inOneHour());
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldHashTokenDeterministically() {
+        assertEquals(VerifiedTokenCache.hash("abc"), VerifiedTokenCache.hash("abc"));
+        assertNotEquals(VerifiedTokenCache.hash("abc"), VerifiedTokenCache.hash("abd"));
+        assertFalse(VerifiedTokenCache.hash("abc").contains("abc"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, 3);
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void submit_shouldRunTaskOnDedicatedThread() throws Exception {
+        String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(threadName.startsWith("password-hashing-"));
+    }
+
+    @Test
+    void submit_shouldRejectTask_whenThreadsAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        // un thread occupé et une place de file prise : la troisième tâche est refusée
+        CompletableFuture<Boolean> busy = executor.submit(() -> {
+            running.countDown();
+            return await(release);
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = executor.submit(() -> true);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> true));
+
+        release.countDown();
+        assertTrue(busy.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        // la file s'est vidée : de nouvelles tâches sont acceptées
+        assertTrue(executor.submit(() -> true).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void getRetryAfterSeconds_shouldReturnConfiguredValue() {
+        assertEquals(3, executor.getRetryAfterSeconds());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
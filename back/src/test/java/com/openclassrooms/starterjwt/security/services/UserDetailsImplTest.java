@@ -54,7 +54,7 @@ class UserDetailsImplTest {
     }
 
     @Test
-    void shouldReturnEmptyAuthorities() {
+    void shouldReturnUserRole_whenNotAdmin() {
         // Arrange
         UserDetailsImpl userDetails = UserDetailsImpl.builder()
                 .id(1L)
@@ -67,8 +67,24 @@ class UserDetailsImplTest {
 
         // Assert
         assertNotNull(authorities);
-        assertTrue(authorities.isEmpty());
-        assertEquals(0, authorities.size());
+        assertEquals(1, authorities.size());
+        assertEquals(UserDetailsImpl.ROLE_USER, authorities.iterator().next().getAuthority());
+    }
+
+    @Test
+    void shouldReturnUserAndAdminRoles_whenAdmin() {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(1L)
+                .username("admin@test.com")
+                .admin(true)
+                .password("password")
+                .build();
+
+        Collection<? extends GrantedAuthority> authorities = userDetails.getAuthorities();
+
+        assertEquals(2, authorities.size());
+        assertTrue(authorities.stream().anyMatch(a -> UserDetailsImpl.ROLE_USER.equals(a.getAuthority())));
+        assertTrue(authorities.stream().anyMatch(a -> UserDetailsImpl.ROLE_ADMIN.equals(a.getAuthority())));
     }
 
     @Test
@@ -88,8 +88,10 @@ class UserDetailsServiceImplTest {
         assertNotNull(userDetails);
         assertEquals("admin@test.com", userDetails.getUsername());
 
-        // IMPORTANT: le service ne remplit pas admin => null attendu
-        assertNull(((UserDetailsImpl) userDetails).getAdmin());
+        // le flag admin est chargé avec l'utilisateur et devient ROLE_ADMIN
+        assertTrue(((UserDetailsImpl) userDetails).getAdmin());
+        assertTrue(userDetails.getAuthorities().stream()
+                .anyMatch(authority -> UserDetailsImpl.ROLE_ADMIN.equals(authority.getAuthority())));
 
         verify(userRepository).findByEmail("admin@test.com");
     }
@@ -122,8 +124,7 @@ class UserDetailsServiceImplTest {
         assertEquals("User", impl.getLastName());
         assertEquals("completePass", impl.getPassword());
 
-        // le service ne remplit pas admin
-        assertNull(impl.getAdmin());
+        assertFalse(impl.getAdmin());
     }
 
 
@@ -176,4 +177,27 @@ class UserDetailsServiceImplTest {
         assertTrue(userDetails instanceof UserDetails);
         assertTrue(userDetails instanceof UserDetailsImpl);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updatePassword_shouldStoreNewHash_andKeepUserDetails() {
+        UserDetailsImpl user = UserDetailsImpl.builder()
+                .id(1L)
+                .username("test@test.com")
+                .firstName("John")
+                .lastName("Doe")
+                .admin(false)
+                .password("oldHash")
+                .build();
+
+        when(userRepository.updatePassword("test@test.com", "newHash")).thenReturn(1);
+
+        UserDetailsImpl updated = (UserDetailsImpl) userDetailsService.updatePassword(user, "newHash");
+
+        assertEquals("newHash", updated.getPassword());
+        assertEquals(1L, updated.getId());
+        assertEquals("test@test.com", updated.getUsername());
+        assertEquals("John", updated.getFirstName());
+        assertEquals(false, updated.getAdmin());
+        verify(userRepository).updatePassword("test@test.com", "newHash");
+    }
+}
@@ -0,0 +1,69 @@
+package com.openclassrooms.starterjwt.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceRuleTest {
+
+    // lundi 4 mars 2024, 18h30
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 4, 18, 30);
+
+    @Test
+    void weekly_shouldRepeatOnTheDayOfTheFirstOccurrence() {
+        List<LocalDateTime> occurrences = RecurrenceRule.parse("FREQ=WEEKLY")
+                .between(START, START, START.plusWeeks(3));
+
+        assertEquals(Arrays.asList(START, START.plusWeeks(1), START.plusWeeks(2)), occurrences);
+    }
+
+    @Test
+    void weekly_shouldUseByDayAndInterval() {
+        List<LocalDateTime> occurrences = RecurrenceRule.parse("freq=weekly;interval=2;byday=we,mo")
+                .between(START, START, START.plusWeeks(4));
+
+        assertEquals(Arrays.asList(
+                START, START.plusDays(2),
+                START.plusWeeks(2), START.plusWeeks(2).plusDays(2)), occurrences);
+    }
+
+    @Test
+    void weekly_shouldStayAlignedOnTheIntervalFromALaterWindow() {
+        // fenêtre commençant la 3e semaine : seules les semaines paires depuis le début comptent
+        List<LocalDateTime> occurrences = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2")
+                .between(START, START.plusWeeks(3), START.plusWeeks(7));
+
+        assertEquals(Arrays.asList(START.plusWeeks(4), START.plusWeeks(6)), occurrences);
+    }
+
+    @Test
+    void daily_shouldExcludeUpperBound() {
+        List<LocalDateTime> occurrences = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3")
+                .between(START, START.plusDays(1), START.plusDays(9));
+
+        assertEquals(Arrays.asList(START.plusDays(3), START.plusDays(6)), occurrences);
+    }
+
+    @Test
+    void between_shouldIgnoreWindowBeforeStart() {
+        List<LocalDateTime> occurrences = RecurrenceRule.parse("FREQ=DAILY")
+                .between(START, START.minusDays(10), START.minusDays(1));
+
+        assertTrue(occurrences.isEmpty());
+    }
+
+    @Test
+    void parse_shouldRejectUnsupportedRules() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=MONTHLY"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=XX"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;BYDAY=MO"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=0"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=WEEKLY;COUNT=3"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ"));
+    }
+}
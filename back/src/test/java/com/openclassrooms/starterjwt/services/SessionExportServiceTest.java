@@ -0,0 +1,96 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SessionExportServiceTest {
+
+    @Autowired
+    private SessionExportService sessionExportService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void cleanUp() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void export_shouldWriteEverySessionWithItsParticipants() throws Exception {
+        User alice = userRepository.save(user("alice@test.com"));
+        User bob = userRepository.save(user("bob@test.com"));
+        Session yoga = sessionRepository.save(session("Yoga").setCapacity(10).setUsers(new ArrayList<>(Arrays.asList(bob, alice))));
+        Session empty = sessionRepository.save(session("Empty"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sessionExportService.export(out);
+
+        JsonNode sessions = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, sessions.size());
+
+        JsonNode first = sessions.get(0);
+        assertEquals(yoga.getId().longValue(), first.get("id").asLong());
+        assertEquals("Yoga", first.get("name").asText());
+        assertEquals(10, first.get("capacity").asInt());
+        assertEquals(2, first.get("users").size());
+        // participants triés par id
+        assertEquals(Math.min(alice.getId(), bob.getId()), first.get("users").get(0).asLong());
+
+        JsonNode second = sessions.get(1);
+        assertEquals(empty.getId().longValue(), second.get("id").asLong());
+        assertTrue(second.get("users").isEmpty());
+        assertTrue(second.get("capacity").isNull());
+    }
+
+    @Test
+    void export_shouldWriteEmptyArray_whenNoSession() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        sessionExportService.export(out);
+
+        assertEquals("[]", out.toString());
+    }
+
+    private static Session session(String name) {
+        return new Session()
+                .setName(name)
+                .setDate(new Date())
+                .setDescription("Export")
+                .setUsers(new ArrayList<>());
+    }
+
+    private static User user(String email) {
+        return new User()
+                .setEmail(email)
+                .setFirstName("John")
+                .setLastName("Doe")
+                .setPassword("password")
+                .setAdmin(false);
+    }
+}
@@ -0,0 +1,188 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.ImportReport;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+// Chunks de 2 lignes pour traverser plusieurs transactions
+@SpringBootTest(properties = "oc.app.importChunkSize=2")
+@ActiveProfiles("test")
+class SessionImportServiceTest {
+
+    @Autowired
+    private SessionImportService sessionImportService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @SpyBean
+    private SessionService sessionService;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Teacher teacher;
+
+    private User alice;
+
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        teacher = teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("DELAHAYE"));
+        alice = userRepository.save(user("alice@test.com"));
+        bob = userRepository.save(user("bob@test.com"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+        teacherRepository.deleteAll();
+    }
+
+    @Test
+    void importJson_shouldSaveValidRowsAndReportTheOthers() throws Exception {
+        String json = "["
+                + "{\"name\":\"Matin\",\"date\":1700000000000,\"description\":\"Hatha\",\"teacher_id\":" + teacher.getId()
+                + ",\"capacity\":5,\"users\":[" + alice.getId() + "," + bob.getId() + "]},"
+                + "{\"date\":1700000000000,\"description\":\"Sans nom\",\"teacher_id\":" + teacher.getId() + "},"
+                + "{\"name\":\"Inconnu\",\"date\":1700000000000,\"description\":\"Vinyasa\",\"teacher_id\":999999},"
+                + "{\"name\":\"Midi\",\"date\":\"pas une date\",\"description\":\"Yin\",\"teacher_id\":" + teacher.getId() + "},"
+                + "{\"name\":\"Soir\",\"date\":1700003600000,\"description\":\"Yin\",\"teacher_id\":" + teacher.getId() + "},"
+                + "{\"name\":\"Nuit\",\"date\":1700007200000,\"description\":\"Nidra\",\"teacher_id\":" + teacher.getId() + "}"
+                + "]";
+
+        ImportReport report = sessionImportService.importJson(stream(json));
+
+        assertEquals(6, report.getReceived());
+        assertEquals(3, report.getImported());
+        assertEquals(List.of(2, 3, 4), rows(report));
+        assertTrue(report.getErrors().get(0).getMessage().contains("name"));
+        assertEquals("Unknown teacher id: 999999", report.getErrors().get(1).getMessage());
+
+        List<Session> sessions = sessionRepository.findAll();
+        sessions.sort(Comparator.comparing(Session::getName));
+        assertEquals(List.of("Matin", "Nuit", "Soir"), sessions.stream().map(Session::getName).collect(Collectors.toList()));
+        Session matin = sessions.get(0);
+        assertEquals(2, matin.getBooked());
+        assertEquals(teacher.getId(), matin.getTeacher().getId());
+        assertEquals(2, sessionRepository.findParticipantIds(matin.getId(), List.of(alice.getId(), bob.getId())).size());
+    }
+
+    @Test
+    void importCsv_shouldParseQuotedFieldsAndParticipants() throws Exception {
+        String csv = "name,date,description,teacher_id,capacity,users\r\n"
+                + "Matin,2024-03-01T09:00:00Z,\"Hatha, \"\"doux\"\"\"," + teacher.getId() + ",2,\"" + alice.getId() + ";" + bob.getId() + "\"\r\n"
+                + "\r\n"
+                + "Complet,2024-03-01,Yin," + teacher.getId() + ",1,\"" + alice.getId() + " " + bob.getId() + "\"\r\n"
+                + "Date,hier,Yin," + teacher.getId() + ",,\r\n"
+                + "Inconnu,2024-03-02,Yin," + teacher.getId() + ",,424242\r\n"
+                + "Soir,2024-03-02T18:30:00,Yin," + teacher.getId() + ",,\r\n";
+
+        ImportReport report = sessionImportService.importCsv(stream(csv));
+
+        assertEquals(5, report.getReceived());
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(2, 3, 4), rows(report));
+        assertEquals("More participants than capacity 1", report.getErrors().get(0).getMessage());
+        assertEquals("Invalid date: hier", report.getErrors().get(1).getMessage());
+        assertEquals("Unknown user ids: [424242]", report.getErrors().get(2).getMessage());
+
+        Session matin = sessionRepository.findAll().stream()
+                .filter(session -> session.getName().equals("Matin"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("Hatha, \"doux\"", matin.getDescription());
+        assertEquals(2, matin.getBooked());
+    }
+
+    @Test
+    void importJson_shouldReportOnlyTheFailingRow_whenAChunkFails() throws Exception {
+        // l'échec survient à l'écriture, après la validation : tout chunk contenant "Panne" est annulé
+        doAnswer(invocation -> {
+            List<Session> sessions = invocation.getArgument(0);
+            if (sessions.stream().anyMatch(session -> session.getName().equals("Panne"))) {
+                throw new DataIntegrityViolationException("Panne");
+            }
+            return invocation.callRealMethod();
+        }).when(sessionService).createAll(anyList());
+        String json = "["
+                + session("Matin") + "," + session("Panne") + "," + session("Midi") + ","
+                + session("Soir") + "," + session("Nuit")
+                + "]";
+
+        ImportReport report = sessionImportService.importJson(stream(json));
+
+        assertEquals(5, report.getReceived());
+        assertEquals(4, report.getImported());
+        assertEquals(List.of(2), rows(report));
+        assertEquals("Not saved: Panne", report.getErrors().get(0).getMessage());
+        assertEquals(4, sessionRepository.count());
+    }
+
+    @Test
+    void importCsv_shouldReject_whenRequiredColumnMissing() {
+        InputStream csv = stream("name,description,teacher_id\nMatin,Hatha,1\n");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> sessionImportService.importCsv(csv));
+
+        assertEquals("Missing CSV column: date", e.getMessage());
+        assertEquals(0, sessionRepository.count());
+    }
+
+    @Test
+    void importJson_shouldReject_whenNotAnArray() {
+        InputStream json = stream("{\"name\":\"Matin\"}");
+
+        assertThrows(IllegalArgumentException.class, () -> sessionImportService.importJson(json));
+        assertEquals(0, sessionRepository.count());
+    }
+
+    private String session(String name) {
+        return "{\"name\":\"" + name + "\",\"date\":1700000000000,\"description\":\"Yin\",\"teacher_id\":" + teacher.getId() + "}";
+    }
+
+    private static List<Integer> rows(ImportReport report) {
+        return report.getErrors().stream().map(ImportReport.RowError::getRow).collect(Collectors.toList());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static User user(String email) {
+        return new User()
+                .setEmail(email)
+                .setFirstName("John")
+                .setLastName("Doe")
+                .setPassword("password")
+                .setAdmin(false);
+    }
+}
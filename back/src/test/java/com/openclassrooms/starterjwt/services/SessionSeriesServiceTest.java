@@ -0,0 +1,242 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Fenêtre de 14 jours : une série hebdomadaire commençant demain a 2 occurrences
+@SpringBootTest(properties = "oc.app.seriesWindowDays=14")
+@ActiveProfiles("test")
+class SessionSeriesServiceTest {
+
+    @Autowired
+    private SessionSeriesService sessionSeriesService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionSeriesRepository sessionSeriesRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Teacher teacher;
+
+    private User user;
+
+    private Date startsAt;
+
+    @BeforeEach
+    void setUp() {
+        teacher = teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("DELAHAYE"));
+        user = userRepository.save(new User()
+                .setEmail("yoga@test.com")
+                .setFirstName("John")
+                .setLastName("Doe")
+                .setPassword("password")
+                .setAdmin(false));
+        startsAt = Date.from(LocalDate.now().plusDays(1).atTime(LocalTime.of(18, 30))
+                .atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        sessionRepository.deleteAll();
+        sessionSeriesRepository.deleteAll();
+        userRepository.deleteAll();
+        teacherRepository.deleteAll();
+    }
+
+    @Test
+    void create_shouldExpandTheWindowOnly() {
+        SessionSeries series = sessionSeriesService.create(series("FREQ=WEEKLY"));
+
+        List<Session> occurrences = occurrences(series.getId());
+        assertEquals(2, occurrences.size());
+        assertEquals(startsAt.getTime(), occurrences.get(0).getDate().getTime());
+        assertEquals(startsAt.getTime() + 7 * 24 * 3600 * 1000L, occurrences.get(1).getDate().getTime());
+        assertTrue(occurrences.stream().allMatch(session -> "Hatha".equals(session.getName()) && session.getCapacity() == 10));
+        assertTrue(series.getGeneratedUntil().after(occurrences.get(1).getDate()));
+    }
+
+    @Test
+    void create_shouldStopAtEndOfSeries() {
+        SessionSeries series = series("FREQ=DAILY").setEndsAt(new Date(startsAt.getTime() + 3 * 24 * 3600 * 1000L));
+
+        sessionSeriesService.create(series);
+
+        assertEquals(3, occurrences(series.getId()).size());
+        assertTrue(sessionSeriesRepository.findIdsToExpand(new Date(Long.MAX_VALUE / 2)).isEmpty());
+    }
+
+    @Test
+    void update_shouldApplyToFutureOccurrencesInPlace() {
+        SessionSeries series = sessionSeriesService.create(series("FREQ=WEEKLY"));
+        List<Session> before = occurrences(series.getId());
+        sessionService.participate(before.get(0).getId(), user.getId());
+
+        sessionSeriesService.update(series.getId(), series("FREQ=WEEKLY").setName("Vinyasa").setCapacity(1));
+
+        List<Session> after = occurrences(series.getId());
+        assertEquals(ids(before), ids(after));
+        assertTrue(after.stream().allMatch(session -> "Vinyasa".equals(session.getName()) && session.getCapacity() == 1));
+        assertEquals(1, after.get(0).getBooked());
+    }
+
+    @Test
+    void update_shouldNotLowerCapacityBelowBookedSeats() {
+        SessionSeries series = sessionSeriesService.create(series("FREQ=WEEKLY").setCapacity(2));
+        Session first = occurrences(series.getId()).get(0);
+        User other = userRepository.save(new User()
+                .setEmail("other@test.com")
+                .setFirstName("Jane")
+                .setLastName("Doe")
+                .setPassword("password")
+                .setAdmin(false));
+        sessionService.participate(first.getId(), user.getId());
+        sessionService.participate(first.getId(), other.getId());
+
+        sessionSeriesService.update(series.getId(), series("FREQ=WEEKLY").setCapacity(1));
+
+        List<Session> after = occurrences(series.getId());
+        assertEquals(2, after.get(0).getCapacity());
+        assertEquals(1, after.get(1).getCapacity());
+    }
+
+    @Test
+    void update_shouldReplaceUnbookedOccurrences_whenRescheduled() {
+        SessionSeries series = sessionSeriesService.create(series("FREQ=WEEKLY"));
+        Session booked = occurrences(series.getId()).get(0);
+        sessionService.participate(booked.getId(), user.getId());
+
+        SessionSeries updated = sessionSeriesService.update(series.getId(), series("FREQ=DAILY"));
+
+        Session detached = sessionRepository.findById(booked.getId()).orElseThrow();
+        assertNull(detached.getSeriesId());
+        assertEquals(1, detached.getBooked());
+
+        int expected = RecurrenceRule.parse("FREQ=DAILY").between(
+                toLocalDateTime(startsAt), toLocalDateTime(startsAt), toLocalDateTime(updated.getGeneratedUntil())).size();
+        assertEquals(expected, occurrences(series.getId()).size());
+    }
+
+    @Test
+    void update_shouldOnlyAddOccurrences_whenSeriesIsExtended() {
+        long day = 24 * 3600 * 1000L;
+        SessionSeries series = sessionSeriesService.create(series("FREQ=DAILY").setEndsAt(new Date(startsAt.getTime() + 3 * day)));
+        List<Session> before = occurrences(series.getId());
+        sessionService.participate(before.get(1).getId(), user.getId());
+
+        sessionSeriesService.update(series.getId(), series("FREQ=DAILY").setName("Vinyasa")
+                .setEndsAt(new Date(startsAt.getTime() + 5 * day)));
+
+        List<Session> after = occurrences(series.getId());
+        assertEquals(5, after.size());
+        assertEquals(ids(before), ids(after.subList(0, 3)));
+        assertEquals(5, after.stream().map(session -> session.getDate().getTime()).distinct().count());
+        assertEquals(1, after.get(1).getBooked());
+        assertTrue(after.stream().allMatch(session -> "Vinyasa".equals(session.getName())));
+    }
+
+    @Test
+    void update_shouldDetachBookedOccurrencesAfterNewEnd_whenSeriesIsShortened() {
+        long day = 24 * 3600 * 1000L;
+        SessionSeries series = sessionSeriesService.create(series("FREQ=DAILY").setEndsAt(new Date(startsAt.getTime() + 3 * day)));
+        List<Session> before = occurrences(series.getId());
+        sessionService.participate(before.get(2).getId(), user.getId());
+
+        sessionSeriesService.update(series.getId(), series("FREQ=DAILY").setName("Vinyasa")
+                .setEndsAt(new Date(startsAt.getTime() + day)));
+
+        List<Session> after = occurrences(series.getId());
+        assertEquals(List.of(before.get(0).getId()), ids(after));
+        Session detached = sessionRepository.findById(before.get(2).getId()).orElseThrow();
+        assertNull(detached.getSeriesId());
+        // l'occurrence réservée sort de la série avec les modifications
+        assertEquals("Vinyasa", detached.getName());
+        assertFalse(sessionRepository.existsById(before.get(1).getId()));
+    }
+
+    @Test
+    void delete_shouldKeepBookedOccurrencesAsOneOffSessions() {
+        SessionSeries series = sessionSeriesService.create(series("FREQ=WEEKLY"));
+        Session booked = occurrences(series.getId()).get(0);
+        sessionService.participate(booked.getId(), user.getId());
+
+        sessionSeriesService.delete(series.getId());
+
+        assertFalse(sessionSeriesRepository.existsById(series.getId()));
+        List<Session> sessions = sessionRepository.findAll();
+        assertEquals(1, sessions.size());
+        assertEquals(booked.getId(), sessions.get(0).getId());
+        assertNull(sessions.get(0).getSeriesId());
+    }
+
+    @Test
+    void expandAll_shouldFillTheWindowOnce() {
+        SessionSeries series = sessionSeriesService.create(series("FREQ=WEEKLY"));
+        // fenêtre remise à zéro, comme si le planificateur n'était pas encore passé
+        sessionRepository.deleteAll();
+        sessionSeriesRepository.save(sessionSeriesRepository.findById(series.getId()).orElseThrow().setGeneratedUntil(startsAt));
+
+        sessionSeriesService.expandAll();
+        sessionSeriesService.expandAll();
+
+        assertEquals(2, occurrences(series.getId()).size());
+    }
+
+    private SessionSeries series(String recurrence) {
+        return new SessionSeries()
+                .setName("Hatha")
+                .setDescription("Hatha du mardi")
+                .setTeacher(teacher)
+                .setCapacity(10)
+                .setRecurrence(recurrence)
+                .setStartsAt(startsAt);
+    }
+
+    private List<Session> occurrences(Long seriesId) {
+        return sessionRepository.findAll().stream()
+                .filter(session -> Objects.equals(seriesId, session.getSeriesId()))
+                .sorted(Comparator.comparing(Session::getDate))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<Session> sessions) {
+        return sessions.stream().map(Session::getId).collect(Collectors.toList());
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,276 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
+import com.openclassrooms.starterjwt.exception.SessionFullException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.SessionPatchRequest;
+import com.openclassrooms.starterjwt.payload.response.ParticipationResult;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Réservations concurrentes contre la base H2 de test : aucune réservation
+ * perdue, jamais plus d'inscrits que la capacité.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SessionServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private static final int BOOKINGS = 40;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void participate_shouldNeverOverbook_whenBookingsExceedCapacity() throws Exception {
+        Long sessionId = createSession(10);
+        List<Long> userIds = createUsers(BOOKINGS);
+
+        Map<Class<?>, Integer> outcomes = bookConcurrently(sessionId, userIds);
+
+        assertEquals(10, outcomes.getOrDefault(Void.class, 0));
+        assertEquals(BOOKINGS - 10, outcomes.getOrDefault(SessionFullException.class, 0));
+        assertEquals(10, participantCount(sessionId));
+        assertEquals(10, sessionRepository.findById(sessionId).orElseThrow().getBooked());
+    }
+
+    @Test
+    void participate_shouldKeepEveryBooking_whenCapacityIsUnlimited() throws Exception {
+        Long sessionId = createSession(null);
+        List<Long> userIds = createUsers(BOOKINGS);
+
+        Map<Class<?>, Integer> outcomes = bookConcurrently(sessionId, userIds);
+
+        assertEquals(BOOKINGS, outcomes.getOrDefault(Void.class, 0));
+        assertEquals(BOOKINGS, participantCount(sessionId));
+        assertEquals(BOOKINGS, sessionRepository.findById(sessionId).orElseThrow().getBooked());
+    }
+
+    @Test
+    void participate_shouldRegisterUserOnce_whenSameUserBooksConcurrently() throws Exception {
+        Long sessionId = createSession(5);
+        Long userId = createUsers(1).get(0);
+
+        Map<Class<?>, Integer> outcomes = bookConcurrently(sessionId, Collections.nCopies(THREADS, userId));
+
+        assertEquals(1, outcomes.getOrDefault(Void.class, 0));
+        assertEquals(THREADS - 1, outcomes.getOrDefault(BadRequestException.class, 0));
+        assertEquals(1, participantCount(sessionId));
+        // les places réservées par les tentatives refusées sont rendues au rollback
+        assertEquals(1, sessionRepository.findById(sessionId).orElseThrow().getBooked());
+    }
+
+    @Test
+    void addParticipants_shouldFillRemainingSeats_whileSingleBookingsRunConcurrently() throws Exception {
+        Long sessionId = createSession(15);
+        List<Long> userIds = createUsers(BOOKINGS);
+        List<Long> group = userIds.subList(0, 20);
+
+        ExecutorService bulkPool = Executors.newSingleThreadExecutor();
+        long added;
+        Map<Class<?>, Integer> outcomes;
+        try {
+            Future<List<ParticipationResult>> bulk = bulkPool.submit(() -> sessionService.addParticipants(sessionId, group));
+            outcomes = bookConcurrently(sessionId, userIds.subList(20, BOOKINGS));
+            added = bulk.get(30, TimeUnit.SECONDS).stream()
+                    .filter(result -> result.getStatus() == ParticipationResult.Status.ADDED)
+                    .count();
+        } finally {
+            bulkPool.shutdownNow();
+        }
+
+        assertEquals(15, added + outcomes.getOrDefault(Void.class, 0));
+        assertEquals(15, participantCount(sessionId));
+        assertEquals(15, sessionRepository.findById(sessionId).orElseThrow().getBooked());
+    }
+
+    @Test
+    void patch_shouldKeepBookedSeats_whileBookingsRunConcurrently() throws Exception {
+        Long sessionId = createSession(null);
+        List<Long> userIds = createUsers(BOOKINGS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BOOKINGS; i++) {
+                Long userId = userIds.get(i);
+                String description = "Patch " + i;
+                futures.add(executor.submit(() -> sessionService.participate(sessionId, userId)));
+                futures.add(executor.submit(() -> {
+                    SessionPatchRequest patch = new SessionPatchRequest();
+                    patch.setDescription(description);
+                    sessionService.patch(sessionId, patch, null);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // le patch n'écrit que la description : ni PARTICIPATE ni le compteur ne sont écrasés
+        assertEquals(BOOKINGS, participantCount(sessionId));
+        Session session = sessionRepository.findById(sessionId).orElseThrow();
+        assertEquals(BOOKINGS, session.getBooked());
+        assertTrue(session.getDescription().startsWith("Patch "));
+    }
+
+    @Test
+    void update_shouldBeRejected_whenABookingHappenedSinceTheRead() {
+        Long sessionId = createSession(10);
+        Long userId = createUsers(1).get(0);
+        Long readVersion = sessionService.getVersion(sessionId);
+
+        sessionService.participate(sessionId, userId);
+
+        assertThrows(PreconditionFailedException.class, () -> sessionService.update(sessionId, edit("Édité"), readVersion));
+        // la réservation n'a pas été écrasée par l'édition
+        assertEquals(1, participantCount(sessionId));
+        assertTrue(sessionService.getVersion(sessionId) > readVersion);
+    }
+
+    @Test
+    void update_shouldLetOneEditWin_whenEditsShareTheSameVersion() throws Exception {
+        Long sessionId = createSession(10);
+        Long readVersion = sessionService.getVersion(sessionId);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String description = "Édition " + i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        sessionService.update(sessionId, edit(description), readVersion);
+                        applied.incrementAndGet();
+                    } catch (PreconditionFailedException | ConcurrencyFailureException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, applied.get());
+        assertEquals(THREADS - 1, rejected.get());
+        assertEquals(readVersion + 1, sessionService.getVersion(sessionId));
+    }
+
+    private static Session edit(String description) {
+        return new Session()
+                .setName("Stress")
+                .setDate(new Date())
+                .setDescription(description)
+                .setCapacity(10)
+                .setUsers(new ArrayList<>());
+    }
+
+    /**
+     * Lance toutes les réservations en même temps et compte les issues :
+     * Void pour un succès, sinon la classe de l'exception levée.
+     */
+    private Map<Class<?>, Integer> bookConcurrently(Long sessionId, List<Long> userIds) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Map<Class<?>, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long userId : userIds) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    Class<?> outcome = Void.class;
+                    try {
+                        sessionService.participate(sessionId, userId);
+                    } catch (SessionFullException | BadRequestException e) {
+                        outcome = e.getClass();
+                    }
+                    counters.computeIfAbsent(outcome, k -> new AtomicInteger()).incrementAndGet();
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return counters.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get()));
+    }
+
+    private Long createSession(Integer capacity) {
+        Session session = new Session()
+                .setName("Stress")
+                .setDate(new Date())
+                .setDescription("Concurrent bookings")
+                .setCapacity(capacity)
+                .setUsers(new ArrayList<>());
+        return sessionRepository.save(session).getId();
+    }
+
+    private List<Long> createUsers(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> userRepository.save(new User()
+                        .setEmail("stress" + i + "@test.com")
+                        .setFirstName("John")
+                        .setLastName("Doe")
+                        .setPassword("password")
+                        .setAdmin(false)).getId())
+                .collect(Collectors.toList());
+    }
+
+    private int participantCount(Long sessionId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, sessionId);
+    }
+}
@@ -1,20 +1,32 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
+import com.openclassrooms.starterjwt.exception.SessionFullException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.SessionPatchRequest;
+import com.openclassrooms.starterjwt.payload.response.ParticipationResult;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeats;
+import com.openclassrooms.starterjwt.repository.SessionView;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
 
+import javax.validation.Validator;
 import java.lang.reflect.Field;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +38,12 @@ class SessionServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TeacherService teacherService;
+
+    @Mock
+    private Validator validator;
+
     @InjectMocks
     private SessionService sessionService;
 
@@ -43,6 +61,38 @@ class SessionServiceTest {
         verifyNoMoreInteractions(sessionRepository, userRepository);
     }
 
+    @Test
+    void create_shouldCountBookedSeats_andRejectOverCapacity() {
+        Session session = new Session().setCapacity(2).setUsers(Arrays.asList(new User(), new User()));
+        when(sessionRepository.save(session)).thenReturn(session);
+
+        sessionService.create(session);
+
+        assertEquals(2, session.getBooked());
+
+        Session overbooked = new Session().setCapacity(1).setUsers(Arrays.asList(new User(), new User()));
+
+        assertThrows(SessionFullException.class, () -> sessionService.create(overbooked));
+        // Session.equals compare les ids, tous deux null ici : on vérifie l'identité
+        verify(sessionRepository, never()).save(argThat(saved -> saved == overbooked));
+    }
+
+    @Test
+    void createAll_shouldCountSeatsAndSaveInOneCall() {
+        Session first = new Session().setUsers(Arrays.asList(new User(), new User()));
+        Session second = new Session();
+        List<Session> sessions = Arrays.asList(first, second);
+        when(sessionRepository.saveAll(sessions)).thenReturn(sessions);
+
+        List<Session> result = sessionService.createAll(sessions);
+
+        assertSame(sessions, result);
+        assertEquals(2, first.getBooked());
+        assertEquals(0, second.getBooked());
+        verify(sessionRepository).saveAll(sessions);
+        verify(sessionRepository, never()).save(any());
+    }
+
     @Test
     void delete_shouldCallRepositoryDeleteById() {
         sessionService.delete(1L);
@@ -52,17 +102,64 @@ class SessionServiceTest {
     }
 
     @Test
-    void findAll_shouldReturnRepositoryList() {
-        List<Session> sessions = Arrays.asList(new Session(), new Session());
-        when(sessionRepository.findAll()).thenReturn(sessions);
+    void findPage_shouldStartFromBeginning_whenNoCursorAndNoFilter() {
+        List<SessionView> rows = Arrays.asList(mock(SessionView.class), mock(SessionView.class));
+        when(sessionRepository.findViewPage(any(Date.class), eq(0L), any(Date.class), eq(21))).thenReturn(rows);
 
-        List<Session> result = sessionService.findAll();
+        Slice<SessionView> result = sessionService.findPage(null, null, null, null, 20);
 
-        assertSame(sessions, result);
-        verify(sessionRepository).findAll();
+        assertEquals(rows, result.getContent());
+        assertFalse(result.hasNext());
+        ArgumentCaptor<Date> afterDate = ArgumentCaptor.forClass(Date.class);
+        verify(sessionRepository).findViewPage(afterDate.capture(), eq(0L), any(Date.class), eq(21));
+        assertEquals(0L, afterDate.getValue().getTime());
         verifyNoMoreInteractions(sessionRepository, userRepository);
     }
 
+    @Test
+    void findPage_shouldContinueAfterCursor_andFilterByTeacher() {
+        Date from = new Date(1000L);
+        Date to = new Date(9000L);
+        SessionCursor cursor = new SessionCursor(new Date(5000L), 12L);
+        when(sessionRepository.findViewPageByTeacher(3L, cursor.getDate(), 12L, to, 11)).thenReturn(Collections.emptyList());
+
+        Slice<SessionView> result = sessionService.findPage(from, to, 3L, cursor, 10);
+
+        assertTrue(result.getContent().isEmpty());
+        verify(sessionRepository).findViewPageByTeacher(3L, cursor.getDate(), 12L, to, 11);
+        verifyNoMoreInteractions(sessionRepository, userRepository);
+    }
+
+    @Test
+    void findPage_shouldIgnoreCursor_whenBeforeFrom() {
+        Date from = new Date(5000L);
+        SessionCursor cursor = new SessionCursor(new Date(1000L), 12L);
+        when(sessionRepository.findViewPage(eq(from), eq(0L), any(Date.class), anyInt())).thenReturn(Collections.emptyList());
+
+        sessionService.findPage(from, null, null, cursor, 10);
+
+        verify(sessionRepository).findViewPage(eq(from), eq(0L), any(Date.class), anyInt());
+    }
+
+    @Test
+    void findPage_shouldReportNextPage_whenOneRowMoreThanTheSize() {
+        List<SessionView> rows = Arrays.asList(mock(SessionView.class), mock(SessionView.class), mock(SessionView.class));
+        when(sessionRepository.findViewPage(any(Date.class), eq(0L), any(Date.class), eq(3))).thenReturn(rows);
+
+        Slice<SessionView> result = sessionService.findPage(null, null, null, null, 2);
+
+        assertTrue(result.hasNext());
+        assertEquals(rows.subList(0, 2), result.getContent());
+    }
+
+    @Test
+    void findPage_shouldThrowBadRequest_whenSizeOutOfBounds() {
+        assertThrows(BadRequestException.class, () -> sessionService.findPage(null, null, null, null, 0));
+        assertThrows(BadRequestException.class, () -> sessionService.findPage(null, null, null, null, SessionService.MAX_PAGE_SIZE + 1));
+
+        verifyNoInteractions(sessionRepository, userRepository);
+    }
+
     @Test
     void getById_shouldReturnSession_whenFound() {
         Session session = new Session();
@@ -75,6 +172,25 @@ class SessionServiceTest {
         verifyNoMoreInteractions(sessionRepository, userRepository);
     }
 
+    @Test
+    void getViewById_shouldReturnView_whenFound() {
+        SessionView view = mock(SessionView.class);
+        when(sessionRepository.findViewById(1L)).thenReturn(Optional.of(view));
+
+        SessionView result = sessionService.getViewById(1L);
+
+        assertSame(view, result);
+        verify(sessionRepository).findViewById(1L);
+        verifyNoMoreInteractions(sessionRepository, userRepository);
+    }
+
+    @Test
+    void getViewById_shouldReturnNull_whenNotFound() {
+        when(sessionRepository.findViewById(1L)).thenReturn(Optional.empty());
+
+        assertNull(sessionService.getViewById(1L));
+    }
+
     @Test
     void getById_shouldReturnNull_whenNotFound() {
         when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
@@ -87,155 +203,325 @@ class SessionServiceTest {
     }
 
     @Test
-    void update_shouldSetIdAndSave() {
-        Session session = new Session();
-        Session saved = new Session();
+    void update_shouldCopyStateOntoStoredSession() {
+        Session existing = new Session().setId(10L).setVersion(3L).setSeriesId(7L);
+        List<User> users = Collections.singletonList(new User());
+        Session changes = new Session().setId(99L).setName("Yoga").setDescription("Nouveau").setCapacity(5).setUsers(users);
 
-        when(sessionRepository.save(any(Session.class))).thenReturn(saved);
+        when(sessionRepository.findById(10L)).thenReturn(Optional.of(existing));
+        when(sessionRepository.saveAndFlush(existing)).thenReturn(existing);
 
-        Session result = sessionService.update(10L, session);
+        Session result = sessionService.update(10L, changes, 3L);
 
-        assertSame(saved, result);
-        // on vérifie que l’objet passé au save a bien l’id = 10
+        assertSame(existing, result);
+        // l'id, la version et la série restent ceux de la ligne stockée
         ArgumentCaptor<Session> captor = ArgumentCaptor.forClass(Session.class);
-        verify(sessionRepository).save(captor.capture());
-
+        verify(sessionRepository).saveAndFlush(captor.capture());
         Session passed = captor.getValue();
         assertEquals(10L, getField(passed, "id"));
+        assertEquals(3L, passed.getVersion());
+        assertEquals(7L, passed.getSeriesId());
+        assertEquals("Nouveau", passed.getDescription());
+        assertEquals(1, passed.getBooked());
+        assertSame(users, passed.getUsers());
 
         verifyNoMoreInteractions(sessionRepository, userRepository);
     }
 
+    @Test
+    void update_shouldRejectStaleVersion() {
+        when(sessionRepository.findById(10L)).thenReturn(Optional.of(new Session().setId(10L).setVersion(4L)));
+
+        assertThrows(PreconditionFailedException.class, () -> sessionService.update(10L, new Session(), 3L));
+
+        verify(sessionRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void update_shouldThrowNotFound_whenSessionNotFound() {
+        when(sessionRepository.findById(10L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> sessionService.update(10L, new Session(), null));
+    }
+
     @Test
     void participate_shouldThrowNotFound_whenSessionOrUserNotFound() {
-        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
-        when(userRepository.findById(2L)).thenReturn(Optional.of(new User()));
+        when(sessionRepository.existsById(1L)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> sessionService.participate(1L, 2L));
 
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(new Session()));
-        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> sessionService.participate(1L, 2L));
+
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
     }
 
     @Test
     void participate_shouldThrowBadRequest_whenAlreadyParticipate() {
-        Long sessionId = 1L;
-        Long userId = 2L;
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(sessionRepository.reserveSeat(1L)).thenReturn(1);
+        // NOT EXISTS filtre la ligne => 0 ligne insérée
+        when(sessionRepository.addParticipant(1L, 2L)).thenReturn(0);
 
-        User user = new User();
-        setField(user, "id", userId);
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 2L));
 
-        Session session = new Session();
-        setUsers(session, new ArrayList<>(Collections.singletonList(user)));
-
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-
-        assertThrows(BadRequestException.class, () -> sessionService.participate(sessionId, userId));
-
-        verify(sessionRepository).findById(sessionId);
-        verify(userRepository).findById(userId);
+        verify(sessionRepository, never()).findById(any());
         verify(sessionRepository, never()).save(any());
     }
 
     @Test
-    void participate_shouldAddUserAndSave_whenNotParticipatingYet() {
-        Long sessionId = 1L;
-        Long userId = 2L;
-
-        User user = new User();
-        setField(user, "id", userId);
-
-        Session session = new Session();
-        setUsers(session, new ArrayList<>()); // personne inscrit
+    void participate_shouldThrowBadRequest_whenUniqueKeyViolated() {
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(sessionRepository.reserveSeat(1L)).thenReturn(1);
+        // inscription concurrente du même utilisateur
+        when(sessionRepository.addParticipant(1L, 2L))
+                .thenThrow(new DataIntegrityViolationException("uk_participate_session_user"));
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 2L));
+    }
 
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    @Test
+    void participate_shouldInsertParticipant_whenNotParticipatingYet() {
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(sessionRepository.reserveSeat(1L)).thenReturn(1);
+        when(sessionRepository.addParticipant(1L, 2L)).thenReturn(1);
+
+        sessionService.participate(1L, 2L);
+
+        InOrder inOrder = inOrder(sessionRepository);
+        inOrder.verify(sessionRepository).reserveSeat(1L);
+        inOrder.verify(sessionRepository).addParticipant(1L, 2L);
+        verify(sessionRepository, never()).findById(any());
+        verify(sessionRepository, never()).save(any());
+    }
 
-        sessionService.participate(sessionId, userId);
+    @Test
+    void participate_shouldThrowSessionFull_whenNoSeatLeft() {
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(sessionRepository.reserveSeat(1L)).thenReturn(0);
 
-        assertEquals(1, session.getUsers().size());
-        assertSame(user, session.getUsers().get(0));
+        assertThrows(SessionFullException.class, () -> sessionService.participate(1L, 2L));
 
-        verify(sessionRepository).save(session);
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
     }
 
     @Test
     void noLongerParticipate_shouldThrowNotFound_whenSessionNotFound() {
-        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
+        when(sessionRepository.existsById(1L)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipate(1L, 2L));
 
-        verify(sessionRepository).findById(1L);
-        verify(sessionRepository, never()).save(any());
+        verify(sessionRepository, never()).removeParticipant(anyLong(), anyLong());
         verifyNoInteractions(userRepository);
     }
 
     @Test
     void noLongerParticipate_shouldThrowBadRequest_whenUserNotParticipating() {
-        Long sessionId = 1L;
-        Long userId = 2L;
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.removeParticipant(1L, 2L)).thenReturn(0);
 
-        Session session = new Session();
-        setUsers(session, new ArrayList<>()); // liste vide => user pas dedans
+        assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(1L, 2L));
+        verify(sessionRepository, never()).releaseSeat(anyLong());
 
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        verifyNoInteractions(userRepository);
+    }
 
-        assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(sessionId, userId));
+    @Test
+    void noLongerParticipate_shouldDeleteParticipant_whenUserParticipating() {
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.removeParticipant(1L, 2L)).thenReturn(1);
+
+        sessionService.noLongerParticipate(1L, 2L);
 
-        verify(sessionRepository).findById(sessionId);
+        verify(sessionRepository).removeParticipant(1L, 2L);
+        verify(sessionRepository).releaseSeat(1L);
+        verify(sessionRepository, never()).findById(any());
         verify(sessionRepository, never()).save(any());
         verifyNoInteractions(userRepository);
     }
 
     @Test
-    void noLongerParticipate_shouldRemoveUserAndSave_whenUserParticipating() {
-        Long sessionId = 1L;
-        Long userId = 2L;
+    void addParticipants_shouldThrowNotFound_whenSessionNotFound() {
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.empty());
 
-        User user = new User();
-        setField(user, "id", userId);
+        assertThrows(NotFoundException.class, () -> sessionService.addParticipants(1L, Arrays.asList(2L, 3L)));
 
-        User other = new User();
-        setField(other, "id", 99L);
+        verify(sessionRepository, never()).insertParticipants(anyLong(), anyList());
+    }
+
+    @Test
+    void addParticipants_shouldInsertNewcomersInOneBatch_andReportEachUser() {
+        // 2 déjà inscrit, 3 et 4 nouveaux, 9 inconnu, 3 en double dans la requête
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.of(seats(null, 1)));
+        when(userRepository.findExistingIds(Arrays.asList(2L, 3L, 9L, 4L))).thenReturn(Arrays.asList(2L, 3L, 4L));
+        when(sessionRepository.findParticipantIds(1L, Arrays.asList(2L, 3L, 9L, 4L))).thenReturn(Collections.singletonList(2L));
+
+        List<ParticipationResult> results = sessionService.addParticipants(1L, Arrays.asList(2L, 3L, 9L, 3L, 4L));
+
+        assertEquals(Arrays.asList(
+                ParticipationResult.Status.ALREADY_PRESENT,
+                ParticipationResult.Status.ADDED,
+                ParticipationResult.Status.UNKNOWN_USER,
+                ParticipationResult.Status.ADDED), statuses(results));
+        verify(sessionRepository).insertParticipants(1L, Arrays.asList(3L, 4L));
+        verify(sessionRepository).adjustBooked(1L, 2);
+    }
+
+    @Test
+    void addParticipants_shouldReportSessionFull_onceSeatsAreTaken() {
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.of(seats(3, 2)));
+        when(userRepository.findExistingIds(anyList())).thenReturn(Arrays.asList(5L, 6L));
+        when(sessionRepository.findParticipantIds(eq(1L), anyList())).thenReturn(Collections.emptyList());
+
+        List<ParticipationResult> results = sessionService.addParticipants(1L, Arrays.asList(5L, 6L));
+
+        assertEquals(Arrays.asList(
+                ParticipationResult.Status.ADDED,
+                ParticipationResult.Status.SESSION_FULL), statuses(results));
+        verify(sessionRepository).insertParticipants(1L, Collections.singletonList(5L));
+        verify(sessionRepository).adjustBooked(1L, 1);
+    }
 
+    @Test
+    void addParticipants_shouldNotWrite_whenNobodyToAdd() {
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.of(seats(null, 1)));
+        when(userRepository.findExistingIds(anyList())).thenReturn(Collections.singletonList(2L));
+        when(sessionRepository.findParticipantIds(eq(1L), anyList())).thenReturn(Collections.singletonList(2L));
+
+        sessionService.addParticipants(1L, Collections.singletonList(2L));
+
+        verify(sessionRepository, never()).insertParticipants(anyLong(), anyList());
+        verify(sessionRepository, never()).adjustBooked(anyLong(), anyInt());
+    }
+
+    @Test
+    void removeParticipants_shouldDeletePresentUsersInOneBatch_andReportEachUser() {
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.of(seats(null, 2)));
+        when(sessionRepository.findParticipantIds(1L, Arrays.asList(2L, 3L, 9L))).thenReturn(Collections.singletonList(2L));
+        when(userRepository.findExistingIds(Arrays.asList(3L, 9L))).thenReturn(Collections.singletonList(3L));
+
+        List<ParticipationResult> results = sessionService.removeParticipants(1L, Arrays.asList(2L, 3L, 9L));
+
+        assertEquals(Arrays.asList(
+                ParticipationResult.Status.REMOVED,
+                ParticipationResult.Status.NOT_PRESENT,
+                ParticipationResult.Status.UNKNOWN_USER), statuses(results));
+        verify(sessionRepository).deleteParticipants(1L, Collections.singletonList(2L));
+        verify(sessionRepository).adjustBooked(1L, -1);
+    }
+
+    @Test
+    void removeParticipants_shouldThrowNotFound_whenSessionNotFound() {
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> sessionService.removeParticipants(1L, Collections.singletonList(2L)));
+
+        verify(sessionRepository, never()).deleteParticipants(anyLong(), anyList());
+    }
+
+    @Test
+    void patch_shouldChangeOnlyReceivedFields_withoutTouchingParticipants() {
+        List<User> users = new ArrayList<>(Collections.singletonList(new User()));
+        Session session = new Session().setName("Yoga").setDescription("Avant").setCapacity(10).setUsers(users);
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.of(seats(10, 1)));
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        SessionPatchRequest patch = new SessionPatchRequest();
+        patch.setDescription("Après");
+        patch.setCapacity(null);
+
+        Session result = sessionService.patch(1L, patch, null);
+
+        assertSame(session, result);
+        assertEquals("Yoga", result.getName());
+        assertEquals("Après", result.getDescription());
+        assertNull(result.getCapacity());
+        assertSame(users, result.getUsers());
+        verify(sessionRepository, never()).save(any());
+        verifyNoInteractions(teacherService);
+    }
+
+    @Test
+    void patch_shouldResolveTeacher() {
         Session session = new Session();
-        setUsers(session, new ArrayList<>(Arrays.asList(user, other)));
+        Teacher teacher = new Teacher().setId(4L);
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.of(seats(null, 0)));
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(teacherService.findById(4L)).thenReturn(teacher);
+        SessionPatchRequest patch = new SessionPatchRequest();
+        patch.setTeacher_id(4L);
 
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        assertSame(teacher, sessionService.patch(1L, patch, null).getTeacher());
+    }
+
+    @Test
+    void patch_shouldRejectUnknownTeacher() {
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.of(seats(null, 0)));
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(new Session()));
+        when(teacherService.findById(4L)).thenReturn(null);
+        SessionPatchRequest patch = new SessionPatchRequest();
+        patch.setTeacher_id(4L);
 
-        sessionService.noLongerParticipate(sessionId, userId);
+        assertThrows(IllegalArgumentException.class, () -> sessionService.patch(1L, patch, null));
+    }
 
-        assertEquals(1, session.getUsers().size());
-        assertEquals(99L, (Long) getField(session.getUsers().get(0), "id"));
+    @Test
+    void patch_shouldRejectCapacityBelowBookedSeats() {
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.of(seats(10, 3)));
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(new Session().setCapacity(10)));
+        SessionPatchRequest patch = new SessionPatchRequest();
+        patch.setCapacity(2);
 
-        verify(sessionRepository).save(session);
-        verifyNoInteractions(userRepository);
+        assertThrows(SessionFullException.class, () -> sessionService.patch(1L, patch, null));
     }
 
-    // ---- helpers (pour éviter dépendre de setters Lombok) ----
-    private static void setUsers(Session session, List<User> users) {
-        try {
-            // si setUsers existe, on l’utilise
-            session.getClass().getMethod("setUsers", List.class).invoke(session, users);
-        } catch (Exception e) {
-            // sinon on force via reflection
-            setField(session, "users", users);
-        }
+    @Test
+    void patch_shouldRejectUnsupportedFields_beforeReadingTheSession() {
+        SessionPatchRequest patch = new SessionPatchRequest();
+        patch.setUnsupported("users", Collections.singletonList(2L));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> sessionService.patch(1L, patch, null));
+
+        assertEquals("Cannot patch users", e.getMessage());
+        verifyNoInteractions(sessionRepository);
     }
 
-    private static void setField(Object target, String fieldName, Object value) {
-        try {
-            Field f = target.getClass().getDeclaredField(fieldName);
-            f.setAccessible(true);
-            f.set(target, value);
-        } catch (Exception e) {
-            throw new RuntimeException("Cannot set field '" + fieldName + "'", e);
-        }
+    @Test
+    void patch_shouldRejectStaleVersion() {
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.of(seats(null, 0)));
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(new Session().setVersion(2L)));
+        SessionPatchRequest patch = new SessionPatchRequest();
+        patch.setName("Yoga");
+
+        assertThrows(PreconditionFailedException.class, () -> sessionService.patch(1L, patch, 1L));
     }
 
+    @Test
+    void patch_shouldThrowNotFound_whenSessionNotFound() {
+        when(sessionRepository.lockSeats(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> sessionService.patch(1L, new SessionPatchRequest(), null));
+    }
+
+    private static SessionSeats seats(Integer capacity, int booked) {
+        return new SessionSeats() {
+            public Integer getCapacity() { return capacity; }
+            public Integer getBooked() { return booked; }
+        };
+    }
+
+    private static List<ParticipationResult.Status> statuses(List<ParticipationResult> results) {
+        List<ParticipationResult.Status> statuses = new ArrayList<>();
+        results.forEach(result -> statuses.add(result.getStatus()));
+        return statuses;
+    }
+
+    // ---- helpers (pour éviter dépendre de setters Lombok) ----
     private static Object getField(Object target, String fieldName) {
         try {
             Field f = target.getClass().getDeclaredField(fieldName);
@@ -0,0 +1,104 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.config.SlowQueryLog;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.SlowQuery;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seuil à 0 ms : chaque requête est enregistrée dans le journal.
+ */
+@SpringBootTest(properties = {"oc.app.slowQueryEnabled=true", "oc.app.slowQueryThresholdMs=0"})
+@ActiveProfiles("test")
+class SlowQueryServiceTest {
+
+    @Autowired
+    private SlowQueryService slowQueryService;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        slowQueryLog.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void insert_shouldBeRecorded_withPasswordRedacted_andRepositoryMethod() {
+        userRepository.save(new User()
+                .setEmail("slow@test.com")
+                .setFirstName("John")
+                .setLastName("Doe")
+                .setPassword("secret-hash")
+                .setAdmin(false));
+
+        SlowQuery insert = find("insert into USERS");
+        // l'insert part au commit, toujours attribué à la méthode du repository
+        assertEquals("UserRepository.save", insert.getCaller());
+        List<String> values = insert.getParameters().get(0);
+        assertTrue(values.contains("slow@test.com"));
+        assertTrue(values.contains("****"));
+        assertFalse(values.contains("secret-hash"));
+    }
+
+    @Test
+    void explain_shouldReturnPlan_ofRecordedSelect() {
+        userRepository.findByEmail("nobody@test.com");
+
+        SlowQuery select = find("select");
+        assertEquals("UserRepository.findByEmail", select.getCaller());
+        assertEquals(List.of("nobody@test.com"), select.getParameters().get(0));
+
+        List<Map<String, Object>> plan = slowQueryService.explain(select.getId());
+
+        assertFalse(plan.isEmpty());
+        // l'EXPLAIN lui-même n'est pas enregistré
+        assertTrue(slowQueryService.findAll().stream().noneMatch(query -> query.getSql().startsWith("EXPLAIN")));
+    }
+
+    @Test
+    void explain_shouldReject_writes() {
+        userRepository.save(new User()
+                .setEmail("write@test.com")
+                .setFirstName("John")
+                .setLastName("Doe")
+                .setPassword("secret-hash")
+                .setAdmin(false));
+
+        SlowQuery insert = find("insert into USERS");
+
+        assertThrows(IllegalArgumentException.class, () -> slowQueryService.explain(insert.getId()));
+    }
+
+    @Test
+    void explain_shouldThrowNotFound_whenIdUnknown() {
+        assertThrows(NotFoundException.class, () -> slowQueryService.explain(-1L));
+    }
+
+    private SlowQuery find(String prefix) {
+        return slowQueryService.findAll().stream()
+                .filter(query -> query.getSql().startsWith(prefix))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no recorded statement starting with " + prefix));
+    }
+}
@@ -0,0 +1,89 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.cache.CacheNames;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TeacherServiceCacheTest {
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Teacher teacher;
+
+    @BeforeEach
+    void setUp() {
+        teacher = teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("DELAHAYE"));
+        cache(CacheNames.TEACHER).clear();
+        cache(CacheNames.TEACHERS).clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        teacherRepository.deleteAll();
+    }
+
+    @Test
+    void findById_shouldBeServedFromCache_onSecondCall() {
+        Teacher first = teacherService.findById(teacher.getId());
+        Teacher second = teacherService.findById(teacher.getId());
+
+        // même instance : le second appel n'a pas touché la base
+        assertSame(first, second);
+        assertNotNull(cache(CacheNames.TEACHER).get(teacher.getId()));
+    }
+
+    @Test
+    void findById_shouldNotCacheUnknownTeacher() {
+        assertNull(teacherService.findById(-1L));
+
+        assertNull(cache(CacheNames.TEACHER).get(-1L));
+    }
+
+    @Test
+    void write_shouldEvictTeacherAndTeacherList() {
+        teacherService.findById(teacher.getId());
+        assertEquals(1, teacherService.findAll().size());
+        assertNotNull(cache(CacheNames.TEACHERS).get(SimpleKey.EMPTY));
+
+        teacherRepository.save(teacher.setLastName("THIERCELIN"));
+
+        assertNull(cache(CacheNames.TEACHER).get(teacher.getId()));
+        assertNull(cache(CacheNames.TEACHERS).get(SimpleKey.EMPTY));
+        assertEquals("THIERCELIN", teacherService.findById(teacher.getId()).getLastName());
+    }
+
+    @Test
+    void insert_shouldEvictTeacherList() {
+        teacherService.findAll();
+
+        teacherRepository.save(new Teacher().setFirstName("Hélène").setLastName("THIERCELIN"));
+
+        assertEquals(2, teacherService.findAll().size());
+    }
+
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        assertNotNull(cache);
+        return cache;
+    }
+}
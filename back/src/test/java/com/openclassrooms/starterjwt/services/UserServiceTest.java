@@ -2,12 +2,15 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
@@ -20,6 +23,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private VerifiedTokenCache tokenCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -30,7 +36,8 @@ class UserServiceTest {
         userService.delete(id);
 
         verify(userRepository).deleteById(id);
-        verifyNoMoreInteractions(userRepository);
+        verify(tokenCache).evictUser(id);
+        verifyNoMoreInteractions(userRepository, tokenCache);
     }
 
     @Test
@@ -60,4 +67,18 @@ class UserServiceTest {
         verify(userRepository).findById(id);
         verifyNoMoreInteractions(userRepository);
     }
+
+    @Test
+    void findAllById_shouldReturnRepositoryList() {
+        List<Long> ids = Arrays.asList(1L, 2L);
+        List<User> users = Arrays.asList(new User(), new User());
+
+        when(userRepository.findAllById(ids)).thenReturn(users);
+
+        List<User> result = userService.findAllById(ids);
+
+        assertSame(users, result);
+        verify(userRepository).findAllById(ids);
+        verifyNoMoreInteractions(userRepository);
+    }
 }
@@ -36,6 +36,20 @@ describe('SessionApiService (HTTP integration)', () => {
     req.flush([{ id: 1, name: 'Yoga' }]);
   });
 
+  it('all() doit suivre X-Next-Cursor jusqu\'à la dernière page', () => {
+    let names: string[] = [];
+    service.all().subscribe((sessions) => {
+      names = sessions.map((session) => session.name);
+    });
+
+    httpMock.expectOne('api/session').flush([{ id: 1, name: 'Yoga' }], {
+      headers: { 'X-Next-Cursor': 'abc' },
+    });
+    httpMock.expectOne('api/session?cursor=abc').flush([{ id: 2, name: 'Pilates' }]);
+
+    expect(names).toEqual(['Yoga', 'Pilates']);
+  });
+
   it('detail(id) doit faire GET api/session/:id', () => {
     service.detail('12').subscribe((session) => {
       expect((session as any).id).toBe(12);
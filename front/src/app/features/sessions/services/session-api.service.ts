@@ -1,6 +1,7 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable } from 'rxjs';
+import { EMPTY, Observable } from 'rxjs';
+import { expand, map, reduce } from 'rxjs/operators';
 import { Session } from '../interfaces/session.interface';
 
 @Injectable({
@@ -13,8 +14,15 @@ export class SessionApiService {
   constructor(private httpClient: HttpClient) {
   }
 
+  /**
+   * The API returns the sessions one page at a time, oldest first; the
+   * pages are followed through the X-Next-Cursor header.
+   */
   public all(): Observable<Session[]> {
-    return this.httpClient.get<Session[]>(this.pathService);
+    return this.page(null).pipe(
+      expand((page) => page.cursor ? this.page(page.cursor) : EMPTY),
+      reduce((sessions: Session[], page) => sessions.concat(page.sessions), [])
+    );
   }
 
   public detail(id: string): Observable<Session> {
@@ -41,4 +49,11 @@ export class SessionApiService {
     return this.httpClient.delete<void>(`${this.pathService}/${id}/participate/${userId}`);
   }
 
+  private page(cursor: string | null): Observable<{ sessions: Session[], cursor: string | null }> {
+    const params = cursor ? new HttpParams().set('cursor', cursor) : undefined;
+    return this.httpClient.get<Session[]>(this.pathService, { params, observe: 'response' }).pipe(
+      map((response) => ({ sessions: response.body ?? [], cursor: response.headers.get('X-Next-Cursor') }))
+    );
+  }
+
 }